@@ -0,0 +1,16 @@
+package liquibase.command.core;
+
+/**
+ * 命令结果的泛型类型。{@link liquibase.command.CommandBuilder#result} 只接受 Class，
+ * 集合类型的结果在这里做一次未检查的转换，结果定义不必使用原始类型
+ */
+final class DMCommandResults {
+
+    private DMCommandResults() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Class<T> type(Class<? super T> rawType) {
+        return (Class<T>) rawType;
+    }
+}
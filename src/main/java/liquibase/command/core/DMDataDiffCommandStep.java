@@ -0,0 +1,155 @@
+package liquibase.command.core;
+
+import liquibase.Scope;
+import liquibase.change.Change;
+import liquibase.changelog.ChangeSet;
+import liquibase.command.AbstractCommandStep;
+import liquibase.command.CommandArgumentDefinition;
+import liquibase.command.CommandBuilder;
+import liquibase.command.CommandDefinition;
+import liquibase.command.CommandResultDefinition;
+import liquibase.command.CommandResultsBuilder;
+import liquibase.command.CommandScope;
+import liquibase.configuration.ConfigurationValueObfuscator;
+import liquibase.database.DatabaseConnection;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.diff.core.DMTableChunkSource;
+import liquibase.diff.core.TableDataComparator;
+import liquibase.exception.CommandExecutionException;
+import liquibase.exception.DatabaseException;
+import liquibase.serializer.ChangeLogSerializerFactory;
+import liquibase.util.StringUtil;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * dmDataDiff 命令：按主键区间哈希比较参考库和目标库中指定表的数据，
+ * 输出使目标表与参考表一致的 insert / update / delete 变更集，每张表一个 changeSet
+ */
+public class DMDataDiffCommandStep extends AbstractCommandStep {
+
+    protected static final String[] COMMAND_NAME = {"dmDataDiff"};
+
+    public static final CommandArgumentDefinition<String> URL_ARG;
+    public static final CommandArgumentDefinition<String> USERNAME_ARG;
+    public static final CommandArgumentDefinition<String> PASSWORD_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_URL_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_USERNAME_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_PASSWORD_ARG;
+    public static final CommandArgumentDefinition<String> TABLES_ARG;
+    public static final CommandArgumentDefinition<String> AUTHOR_ARG;
+    public static final CommandArgumentDefinition<String> FORMAT_ARG;
+    public static final CommandResultDefinition<List<ChangeSet>> CHANGE_SETS_RESULT;
+
+    static {
+        CommandBuilder builder = new CommandBuilder(COMMAND_NAME);
+        URL_ARG = builder.argument("url", String.class).required()
+                .description("JDBC URL of the database to bring in line with the reference").build();
+        USERNAME_ARG = builder.argument("username", String.class)
+                .description("User for the target database").build();
+        PASSWORD_ARG = builder.argument("password", String.class)
+                .description("Password for the target database")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD).build();
+        REFERENCE_URL_ARG = builder.argument("referenceUrl", String.class).required()
+                .description("JDBC URL of the reference database").build();
+        REFERENCE_USERNAME_ARG = builder.argument("referenceUsername", String.class)
+                .description("User for the reference database. Defaults to --username").build();
+        REFERENCE_PASSWORD_ARG = builder.argument("referencePassword", String.class)
+                .description("Password for the reference database. Defaults to --password")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD).build();
+        TABLES_ARG = builder.argument("tables", String.class).required()
+                .description("Comma separated SCHEMA.TABLE names to compare. Each table needs a single column primary key").build();
+        AUTHOR_ARG = builder.argument("author", String.class).defaultValue("liquibase")
+                .description("Author of the generated changesets").build();
+        FORMAT_ARG = builder.argument("format", String.class).defaultValue("xml")
+                .description("Changelog format of the output: xml, yaml, json or sql").build();
+        CHANGE_SETS_RESULT = builder.result("changeSets", DMCommandResults.<List<ChangeSet>>type(List.class))
+                .description("Generated changesets, one per table with differences").build();
+    }
+
+    @Override
+    public String[][] defineCommandNames() {
+        return new String[][]{COMMAND_NAME};
+    }
+
+    @Override
+    public void adjustCommandDefinition(CommandDefinition commandDefinition) {
+        commandDefinition.setShortDescription("Compare table data of two DM databases by primary key range hashes and generate the differing rows as changes");
+    }
+
+    @Override
+    public void run(CommandResultsBuilder resultsBuilder) throws Exception {
+        CommandScope commandScope = resultsBuilder.getCommandScope();
+        String username = commandScope.getArgumentValue(USERNAME_ARG);
+        String password = commandScope.getArgumentValue(PASSWORD_ARG);
+        String referenceUsername = commandScope.getArgumentValue(REFERENCE_USERNAME_ARG);
+        String referencePassword = commandScope.getArgumentValue(REFERENCE_PASSWORD_ARG);
+        if (referenceUsername == null) {
+            referenceUsername = username;
+            referencePassword = password;
+        }
+        String author = commandScope.getArgumentValue(AUTHOR_ARG);
+
+        List<ChangeSet> changeSets = new ArrayList<>();
+        DatabaseConnection referenceConnection = open(commandScope.getArgumentValue(REFERENCE_URL_ARG), referenceUsername, referencePassword);
+        try {
+            DatabaseConnection targetConnection = open(commandScope.getArgumentValue(URL_ARG), username, password);
+            try {
+                for (String name : StringUtil.splitAndTrim(commandScope.getArgumentValue(TABLES_ARG), ",")) {
+                    List<Change> changes = compareTable(((JdbcConnection) referenceConnection).getWrappedConnection(), ((JdbcConnection) targetConnection).getWrappedConnection(), name);
+                    if (!changes.isEmpty()) {
+                        ChangeSet changeSet = new ChangeSet("data-" + name, author, false, false, null, null, null, null);
+                        for (Change change : changes) {
+                            changeSet.addChange(change);
+                        }
+                        changeSets.add(changeSet);
+                    }
+                }
+            } finally {
+                targetConnection.close();
+            }
+        } finally {
+            referenceConnection.close();
+        }
+        ChangeLogSerializerFactory.getInstance().getSerializer(commandScope.getArgumentValue(FORMAT_ARG)).write(changeSets, resultsBuilder.getOutputStream());
+        resultsBuilder.addResult(CHANGE_SETS_RESULT, changeSets);
+    }
+
+    private List<Change> compareTable(Connection reference, Connection target, String name) throws Exception {
+        String[] parts = name.split("\\.");
+        if (parts.length != 2) {
+            throw new CommandExecutionException("Table " + name + " must be given as SCHEMA.TABLE");
+        }
+        String schemaName = parts[0];
+        String tableName = parts[1];
+        String keyColumn = DMTableChunkSource.findKeyColumn(reference, schemaName, tableName);
+        if (keyColumn == null) {
+            // 没有单列主键时无法按区间拆分，跳过该表
+            Scope.getCurrentScope().getUI().sendMessage("Skipping " + name + ": no single column primary key in the reference database");
+            return new ArrayList<>();
+        }
+        // 两边使用参考表的列，结构差异由 diff 处理
+        Map<String, String> columns = DMTableChunkSource.findColumns(reference, schemaName, tableName);
+        TableDataComparator comparator = new TableDataComparator(
+                new DMTableChunkSource(reference, schemaName, tableName, keyColumn, columns),
+                new DMTableChunkSource(target, schemaName, tableName, keyColumn, columns),
+                keyColumn);
+        List<Change> changes = comparator.compare(schemaName, tableName);
+        Scope.getCurrentScope().getLog(getClass()).info("Compared " + name + ": " + comparator.getChunksCompared() + " chunks, "
+                + comparator.getRowsFetched() + " rows fetched, " + changes.size() + " changes");
+        return changes;
+    }
+
+    private static DatabaseConnection open(String url, String username, String password) throws DatabaseException {
+        DatabaseConnection connection = DatabaseFactory.getInstance().openConnection(url, username, password, null, Scope.getCurrentScope().getResourceAccessor());
+        if (!(connection instanceof JdbcConnection)) {
+            connection.close();
+            throw new DatabaseException("Cannot compare data of " + url + ": not a JDBC connection");
+        }
+        return connection;
+    }
+}
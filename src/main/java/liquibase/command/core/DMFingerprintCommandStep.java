@@ -0,0 +1,205 @@
+package liquibase.command.core;
+
+import liquibase.Scope;
+import liquibase.command.AbstractCommandStep;
+import liquibase.command.CommandArgumentDefinition;
+import liquibase.command.CommandBuilder;
+import liquibase.command.CommandDefinition;
+import liquibase.command.CommandResultDefinition;
+import liquibase.command.CommandResultsBuilder;
+import liquibase.command.CommandScope;
+import liquibase.configuration.ConfigurationValueObfuscator;
+import liquibase.database.DatabaseConnection;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.jvm.SchemaFingerprint;
+import liquibase.util.StringUtil;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * dmFingerprint 命令：并行计算一组达梦实例的模式指纹并与参考库比较，
+ * 只对指纹不一致的实例执行完整的 diff
+ */
+public class DMFingerprintCommandStep extends AbstractCommandStep {
+
+    protected static final String[] COMMAND_NAME = {"dmFingerprint"};
+
+    public static final CommandArgumentDefinition<String> URLS_ARG;
+    public static final CommandArgumentDefinition<String> USERNAME_ARG;
+    public static final CommandArgumentDefinition<String> PASSWORD_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_URL_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_USERNAME_ARG;
+    public static final CommandArgumentDefinition<String> REFERENCE_PASSWORD_ARG;
+    public static final CommandArgumentDefinition<String> SCHEMAS_ARG;
+    public static final CommandArgumentDefinition<Integer> THREADS_ARG;
+    public static final CommandArgumentDefinition<Boolean> DEEP_DIFF_ARG;
+    public static final CommandResultDefinition<Map<String, Map<String, String>>> FINGERPRINTS_RESULT;
+    public static final CommandResultDefinition<List<String>> DRIFTED_RESULT;
+
+    static {
+        CommandBuilder builder = new CommandBuilder(COMMAND_NAME);
+        URLS_ARG = builder.argument("urls", String.class).required()
+                .description("Comma separated JDBC URLs of the DM instances to check").build();
+        USERNAME_ARG = builder.argument("username", String.class)
+                .description("User for the checked instances").build();
+        PASSWORD_ARG = builder.argument("password", String.class)
+                .description("Password for the checked instances")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD).build();
+        REFERENCE_URL_ARG = builder.argument("referenceUrl", String.class).required()
+                .description("JDBC URL of the baseline instance").build();
+        REFERENCE_USERNAME_ARG = builder.argument("referenceUsername", String.class)
+                .description("User for the baseline instance. Defaults to --username").build();
+        REFERENCE_PASSWORD_ARG = builder.argument("referencePassword", String.class)
+                .description("Password for the baseline instance. Defaults to --password")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD).build();
+        SCHEMAS_ARG = builder.argument("schemas", String.class).required()
+                .description("Comma separated schemas to fingerprint").build();
+        THREADS_ARG = builder.argument("threads", Integer.class).defaultValue(8)
+                .description("Number of instances scanned at the same time").build();
+        DEEP_DIFF_ARG = builder.argument("deepDiff", Boolean.class).defaultValue(true)
+                .description("If true, run a full diff against the baseline for every instance whose fingerprint differs").build();
+        FINGERPRINTS_RESULT = builder.result("fingerprints", DMCommandResults.<Map<String, Map<String, String>>>type(Map.class))
+                .description("URL -> schema -> fingerprint digest of every instance that could be scanned").build();
+        DRIFTED_RESULT = builder.result("driftedUrls", DMCommandResults.<List<String>>type(List.class))
+                .description("URLs whose fingerprint differs from the baseline").build();
+    }
+
+    @Override
+    public String[][] defineCommandNames() {
+        return new String[][]{COMMAND_NAME};
+    }
+
+    @Override
+    public void adjustCommandDefinition(CommandDefinition commandDefinition) {
+        commandDefinition.setShortDescription("Compare schema fingerprints of DM instances with a baseline and diff only the drifted ones");
+    }
+
+    @Override
+    public void run(CommandResultsBuilder resultsBuilder) throws Exception {
+        CommandScope commandScope = resultsBuilder.getCommandScope();
+        List<String> urls = StringUtil.splitAndTrim(commandScope.getArgumentValue(URLS_ARG), ",");
+        List<String> schemas = StringUtil.splitAndTrim(commandScope.getArgumentValue(SCHEMAS_ARG), ",");
+        String username = commandScope.getArgumentValue(USERNAME_ARG);
+        String password = commandScope.getArgumentValue(PASSWORD_ARG);
+        String referenceUrl = commandScope.getArgumentValue(REFERENCE_URL_ARG);
+        String referenceUsername = commandScope.getArgumentValue(REFERENCE_USERNAME_ARG);
+        String referencePassword = commandScope.getArgumentValue(REFERENCE_PASSWORD_ARG);
+        if (referenceUsername == null) {
+            referenceUsername = username;
+            referencePassword = password;
+        }
+
+        Map<String, SchemaFingerprint> baseline = fingerprint(referenceUrl, referenceUsername, referencePassword, schemas);
+        Map<String, Future<Map<String, SchemaFingerprint>>> scans = new LinkedHashMap<>();
+        ExecutorService executor = newExecutor(commandScope.getArgumentValue(THREADS_ARG));
+        try {
+            for (String url : urls) {
+                scans.put(url, executor.submit(() -> fingerprint(url, username, password, schemas)));
+            }
+
+            Map<String, Map<String, String>> fingerprints = new LinkedHashMap<>();
+            List<String> drifted = new ArrayList<>();
+            PrintWriter output = new PrintWriter(new OutputStreamWriter(resultsBuilder.getOutputStream(), StandardCharsets.UTF_8));
+            for (Map.Entry<String, Future<Map<String, SchemaFingerprint>>> scan : scans.entrySet()) {
+                String url = scan.getKey();
+                Map<String, SchemaFingerprint> found;
+                try {
+                    found = scan.getValue().get();
+                } catch (ExecutionException e) {
+                    // 连接失败的实例不影响其余实例
+                    output.println("ERROR " + url + " " + e.getCause().getMessage());
+                    continue;
+                }
+                Map<String, String> digests = new LinkedHashMap<>();
+                List<String> differences = new ArrayList<>();
+                for (String schema : schemas) {
+                    digests.put(schema, found.get(schema).getDigest());
+                    List<String> categories = found.get(schema).getDifferingCategories(baseline.get(schema));
+                    if (!categories.isEmpty()) {
+                        differences.add(schema + " (" + StringUtil.join(categories, ", ") + ")");
+                    }
+                }
+                fingerprints.put(url, digests);
+                if (differences.isEmpty()) {
+                    output.println("MATCH " + url);
+                } else {
+                    drifted.add(url);
+                    output.println("DRIFT " + url + " " + StringUtil.join(differences, "; "));
+                }
+            }
+            output.println(drifted.size() + " of " + urls.size() + " instances differ from " + referenceUrl);
+            output.flush();
+
+            if (commandScope.getArgumentValue(DEEP_DIFF_ARG)) {
+                for (String url : drifted) {
+                    output.println();
+                    output.println("Diff of " + url);
+                    output.flush();
+                    runDiff(resultsBuilder.getOutputStream(), url, username, password, referenceUrl, referenceUsername, referencePassword, schemas);
+                }
+            }
+            resultsBuilder.addResult(FINGERPRINTS_RESULT, fingerprints);
+            resultsBuilder.addResult(DRIFTED_RESULT, drifted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在一个新连接上计算各模式的指纹，结束后关闭连接
+     */
+    private static Map<String, SchemaFingerprint> fingerprint(String url, String username, String password, List<String> schemas) throws DatabaseException {
+        DatabaseConnection connection = DatabaseFactory.getInstance().openConnection(url, username, password, null, Scope.getCurrentScope().getResourceAccessor());
+        try {
+            if (!(connection instanceof JdbcConnection)) {
+                throw new DatabaseException("Cannot fingerprint " + url + ": not a JDBC connection");
+            }
+            Map<String, SchemaFingerprint> fingerprints = new LinkedHashMap<>();
+            for (String schema : schemas) {
+                fingerprints.put(schema, SchemaFingerprint.compute(((JdbcConnection) connection).getWrappedConnection(), schema));
+            }
+            return fingerprints;
+        } catch (SQLException e) {
+            throw new DatabaseException("Cannot fingerprint " + url + ": " + e.getMessage(), e);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void runDiff(OutputStream out, String url, String username, String password, String referenceUrl, String referenceUsername, String referencePassword, List<String> schemas) throws Exception {
+        new CommandScope("diff")
+                .addArgumentValue("url", url)
+                .addArgumentValue("username", username)
+                .addArgumentValue("password", password)
+                .addArgumentValue("referenceUrl", referenceUrl)
+                .addArgumentValue("referenceUsername", referenceUsername)
+                .addArgumentValue("referencePassword", referencePassword)
+                .addArgumentValue("schemas", StringUtil.join(schemas, ","))
+                .setOutput(out)
+                .execute();
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "dm-fingerprint-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package liquibase.database.core;
+
+import liquibase.Scope;
+import liquibase.database.DatabaseConnection;
+import liquibase.database.jvm.DMJdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 快照使用的只读连接池，连接按需创建，同时使用的连接数不超过 size。
+ * 由 {@link DMDatabase} 持有，随 DMDatabase.close() 一起关闭。
+ */
+public class DMConnectionPool {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String driverClass;
+    private final ClassLoader classLoader;
+    private final ExecutorService executor;
+    // 线程数不一定等于连接数（Java 21 使用虚拟线程），借用连接前先取得许可
+    private final Semaphore permits;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final Set<Connection> opened = ConcurrentHashMap.newKeySet();
+
+    public DMConnectionPool(String url, String username, String password, String driverClass, int size) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.driverClass = driverClass;
+        this.classLoader = Scope.getCurrentScope().getClassLoader();
+        this.executor = SnapshotExecutors.newExecutor("dm-snapshot", size);
+        this.permits = new Semaphore(Math.max(1, size));
+    }
+
+    /**
+     * 根据主连接和 liquibase.chinesedb.snapshot 配置创建连接池，配置了 readUrl 时连接到只读副本。
+     * 账号取自主连接，username、password 配置只用于显式覆盖
+     */
+    public static DMConnectionPool forDatabase(DMDatabase database) throws DatabaseException {
+        String url = getSnapshotUrl(database);
+        return new DMConnectionPool(url, getSnapshotUserName(database), getSnapshotPassword(database), database.getDefaultDriver(url), ChineseDbSnapshotConfiguration.PARALLEL_CONNECTIONS.getCurrentValue());
+    }
+
+    /**
+     * 打开本库只读副本上的连接（见 {@link #getReadUrl}），由调用方关闭
+     */
+    static Connection openReadConnection(DMDatabase database) throws DatabaseException {
+        String url = getSnapshotUrl(database);
+        try {
+            return connect(url, getSnapshotUserName(database), getSnapshotPassword(database), database.getDefaultDriver(url), Scope.getCurrentScope().getClassLoader());
+        } catch (SQLException e) {
+            throw new DatabaseException("Cannot open read connection to " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String getSnapshotUrl(DMDatabase database) throws DatabaseException {
+        if (database.getConnection() == null) {
+            throw new DatabaseException("Cannot open snapshot connections without a primary connection");
+        }
+        String readUrl = getReadUrl(database);
+        return readUrl != null ? readUrl : getPrimaryUrl(database.getConnection());
+    }
+
+    /**
+     * 本库的只读副本：readUrl 属于 URL 为 readUrlPrimary 的库，referenceReadUrl 属于 URL 为 referenceReadUrlPrimary 的库。
+     * 比较时参照库和目标库各自使用自己的副本，URL 与两者都不相同时返回 null，字典查询留在主连接上
+     */
+    static String getReadUrl(DMDatabase database) {
+        DatabaseConnection connection = database.getConnection();
+        if (connection == null) {
+            return null;
+        }
+        String url = getPrimaryUrl(connection);
+        if (sameUrl(url, ChineseDbSnapshotConfiguration.READ_URL_PRIMARY.getCurrentValue())) {
+            return ChineseDbSnapshotConfiguration.READ_URL.getCurrentValue();
+        }
+        if (sameUrl(url, ChineseDbSnapshotConfiguration.REFERENCE_READ_URL_PRIMARY.getCurrentValue())) {
+            return ChineseDbSnapshotConfiguration.REFERENCE_READ_URL.getCurrentValue();
+        }
+        return null;
+    }
+
+    // 驱动返回的 URL 可能去掉了参数，优先使用打开连接时的 URL
+    private static String getPrimaryUrl(DatabaseConnection connection) {
+        if (connection instanceof DMJdbcConnection && ((DMJdbcConnection) connection).getOpenUrl() != null) {
+            return ((DMJdbcConnection) connection).getOpenUrl();
+        }
+        return connection.getURL();
+    }
+
+    private static boolean sameUrl(String url, String configured) {
+        return url != null && configured != null && url.trim().equals(configured.trim());
+    }
+
+    private static String getSnapshotUserName(DMDatabase database) {
+        String username = ChineseDbSnapshotConfiguration.USERNAME.getCurrentValue();
+        if (username != null) {
+            return username;
+        }
+        Properties properties = getOpenProperties(database);
+        if (properties != null && properties.getProperty("user") != null) {
+            return properties.getProperty("user");
+        }
+        return database.getConnection().getConnectionUserName();
+    }
+
+    private static String getSnapshotPassword(DMDatabase database) {
+        String password = ChineseDbSnapshotConfiguration.PASSWORD.getCurrentValue();
+        if (password != null) {
+            return password;
+        }
+        Properties properties = getOpenProperties(database);
+        return properties == null ? null : properties.getProperty("password");
+    }
+
+    // 主连接由 DMJdbcConnection 打开时才有驱动属性；直接包装的连接取不到密码
+    private static Properties getOpenProperties(DMDatabase database) {
+        DatabaseConnection connection = database.getConnection();
+        return connection instanceof DMJdbcConnection ? ((DMJdbcConnection) connection).getOpenProperties() : null;
+    }
+
+    /**
+     * 在池中的某个连接上执行任务，任务成功后连接归还；任务失败时连接可能已经断开，关闭后丢弃，下次按需重新创建
+     */
+    public <T> Future<T> submit(ConnectionCallback<T> callback) {
+        return executor.submit(() -> {
+            permits.acquire();
+            try {
+                Connection connection = borrow();
+                T result;
+                try {
+                    result = callback.doInConnection(connection);
+                } catch (SQLException | RuntimeException e) {
+                    discard(connection);
+                    throw e;
+                }
+                idle.offer(connection);
+                return result;
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private Connection borrow() throws SQLException {
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        return open();
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = connect(url, username, password, driverClass, classLoader);
+        opened.add(connection);
+        return connection;
+    }
+
+    private void discard(Connection connection) {
+        opened.remove(connection);
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Error closing failed snapshot connection: " + e.getMessage());
+        }
+    }
+
+    private static Connection connect(String url, String username, String password, String driverClass, ClassLoader classLoader) throws SQLException {
+        try {
+            Driver driver = (Driver) Class.forName(driverClass, true, classLoader).getConstructor().newInstance();
+            Properties properties = new Properties();
+            if (username != null) {
+                properties.put("user", username);
+            }
+            if (password != null) {
+                properties.put("password", password);
+            }
+            Connection connection = driver.connect(url, properties);
+            if (connection == null) {
+                throw new SQLException("Driver " + driverClass + " does not accept url " + url);
+            }
+            connection.setReadOnly(true);
+            return connection;
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("Cannot load driver " + driverClass, e);
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        idle.clear();
+        for (Connection connection : opened) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                Scope.getCurrentScope().getLog(getClass()).fine("Error closing snapshot connection: " + e.getMessage());
+            }
+        }
+        opened.clear();
+    }
+
+    public interface ConnectionCallback<T> {
+        T doInConnection(Connection connection) throws SQLException;
+    }
+}
@@ -12,15 +12,13 @@ import liquibase.executor.ExecutorService;
 import liquibase.statement.DatabaseFunction;
 import liquibase.statement.SequenceCurrentValueFunction;
 import liquibase.statement.SequenceNextValueFunction;
+import liquibase.statement.SqlStatement;
 import liquibase.statement.core.RawCallStatement;
 import liquibase.structure.core.Schema;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Locale;
-import java.util.Set;
 
 public class DMDatabase extends AbstractJdbcDatabase {
 
@@ -28,8 +26,11 @@ public class DMDatabase extends AbstractJdbcDatabase {
     private static final String PRODUCT_NAME = "DM DBMS";
     private static final String COMPATIBLE_MODE_ORACLE = "oracle";
     private static final Integer PORT = 5236;
-    private final Set<String> reservedWords = new HashSet<>(); // 关键字集合
-    private volatile String cachedSchemaName;
+    private volatile DMReservedWords reservedWords = DMReservedWords.packaged(); // 关键字集合，同一版本的实例共用
+    private volatile Connection reservedWordsConnection; // 尚未读取关键字的连接，第一次查找关键字时才读取
+    private volatile DMSessionMetadata sessionMetadata; // 当前连接的会话信息，setConnection 时读取
+    private DMConnectionPool snapshotConnectionPool;
+    private Connection readConnection;
 
     /**
      * Default constructor for an object that represents the Oracle Database DBMS.
@@ -53,11 +54,6 @@ public class DMDatabase extends AbstractJdbcDatabase {
 
     @Override
     public void setConnection(DatabaseConnection conn) {
-        //noinspection HardCodedStringLiteral,HardCodedStringLiteral,HardCodedStringLiteral,HardCodedStringLiteral,
-        // HardCodedStringLiteral
-        //noinspection HardCodedStringLiteral,HardCodedStringLiteral,HardCodedStringLiteral,HardCodedStringLiteral,
-        // HardCodedStringLiteral
-        reservedWords.addAll(Arrays.asList("GROUP", "USER", "SESSION", "PASSWORD", "RESOURCE", "START", "SIZE", "UID", "DESC", "ORDER")); //more reserved words not returned by driver
         Connection sqlConn = null;
         if (!(conn instanceof OfflineConnection)) {
             try {
@@ -73,18 +69,58 @@ public class DMDatabase extends AbstractJdbcDatabase {
                 throw new UnexpectedLiquibaseException(e);
             }
 
-            if (sqlConn != null) {
+        }
+        // 关键字在第一次 isReservedWord 时才读取，建立连接时不调用驱动的元数据
+        reservedWords = DMReservedWords.packaged();
+        reservedWordsConnection = sqlConn;
+        sessionMetadata = DMSessionMetadata.load(conn, sqlConn);
+        super.setConnection(conn);
+    }
+
+    /**
+     * 并行快照使用的额外连接池，首次使用时创建
+     */
+    public synchronized DMConnectionPool getSnapshotConnectionPool() throws DatabaseException {
+        if (snapshotConnectionPool == null) {
+            snapshotConnectionPool = DMConnectionPool.forDatabase(this);
+        }
+        return snapshotConnectionPool;
+    }
+
+    /**
+     * 本库在 liquibase.chinesedb.snapshot 中配置的只读副本 URL，没有配置或配置的是其它库的副本时返回 null
+     */
+    public String getReadUrl() {
+        return DMConnectionPool.getReadUrl(this);
+    }
+
+    /**
+     * 本库配置了只读副本时快照和比较的字典查询所用的只读连接，第一次使用时打开，随 close() 关闭
+     */
+    public synchronized Connection getReadConnection() throws DatabaseException {
+        if (readConnection == null) {
+            readConnection = DMConnectionPool.openReadConnection(this);
+        }
+        return readConnection;
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        synchronized (this) {
+            if (snapshotConnectionPool != null) {
+                snapshotConnectionPool.close();
+                snapshotConnectionPool = null;
+            }
+            if (readConnection != null) {
                 try {
-                    //noinspection HardCodedStringLiteral
-                    reservedWords.addAll(Arrays.asList(sqlConn.getMetaData().getSQLKeywords().toUpperCase().split(",\\s*")));
+                    readConnection.close();
                 } catch (SQLException e) {
-                    //noinspection HardCodedStringLiteral
-                    Scope.getCurrentScope().getLog(getClass()).warning("Could get sql keywords on DM Database: " + e.getMessage());
-                    //can not get keywords. Continue on
+                    Scope.getCurrentScope().getLog(getClass()).fine("Error closing read connection: " + e.getMessage());
                 }
+                readConnection = null;
             }
         }
-        super.setConnection(conn);
+        super.close();
     }
 
     @Override
@@ -212,8 +248,9 @@ public class DMDatabase extends AbstractJdbcDatabase {
 
     @Override
     protected String getConnectionSchemaName() {
-        if (cachedSchemaName != null) {
-            return cachedSchemaName;
+        DMSessionMetadata session = sessionMetadata;
+        if (session != null && session.getCurrentSchema() != null) {
+            return session.getCurrentSchema();
         }
         if (getConnection() instanceof OfflineConnection) {
             return ((OfflineConnection) getConnection()).getSchema();
@@ -221,8 +258,8 @@ public class DMDatabase extends AbstractJdbcDatabase {
         try {
             //noinspection HardCodedStringLiteral
             String schema = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", this).queryForObject(new RawCallStatement("select sys_context( 'userenv', 'current_schema' ) from dual"), String.class);
-            if (schema != null) {
-                cachedSchemaName = schema;
+            if (schema != null && session != null) {
+                session.setCurrentSchema(schema);
             }
             return schema;
         } catch (Exception e) {
@@ -236,7 +273,26 @@ public class DMDatabase extends AbstractJdbcDatabase {
 
     @Override
     public boolean isReservedWord(String objectName) {
-        return reservedWords.contains(objectName.toUpperCase());
+        return getReservedWords().contains(objectName);
+    }
+
+    private DMReservedWords getReservedWords() {
+        if (reservedWordsConnection != null) {
+            synchronized (this) {
+                Connection connection = reservedWordsConnection;
+                if (connection != null) {
+                    try {
+                        reservedWords = DMReservedWords.forMetaData(connection.getMetaData());
+                    } catch (SQLException e) {
+                        //noinspection HardCodedStringLiteral
+                        Scope.getCurrentScope().getLog(getClass()).warning("Could get sql keywords on DM Database: " + e.getMessage());
+                        //can not get keywords. Continue on
+                    }
+                    reservedWordsConnection = null;
+                }
+            }
+        }
+        return reservedWords;
     }
 
     @Override
@@ -305,6 +361,10 @@ public class DMDatabase extends AbstractJdbcDatabase {
 
     @Override
     public int getDatabaseMajorVersion() throws DatabaseException {
+        DMSessionMetadata session = sessionMetadata;
+        if (session != null) {
+            return session.getMajorVersion();
+        }
         try {
             return getConnection().getDatabaseMajorVersion();
         } catch (Exception e) {
@@ -315,6 +375,10 @@ public class DMDatabase extends AbstractJdbcDatabase {
 
     @Override
     public int getDatabaseMinorVersion() throws DatabaseException {
+        DMSessionMetadata session = sessionMetadata;
+        if (session != null) {
+            return session.getMinorVersion();
+        }
         try {
             return getConnection().getDatabaseMinorVersion();
         } catch (Exception e) {
@@ -383,6 +447,19 @@ public class DMDatabase extends AbstractJdbcDatabase {
                 }
             }
         }
-        super.execute(statements, sqlVisitors);
+        try {
+            super.execute(statements, sqlVisitors);
+        } finally {
+            // ALTER SESSION / SET SCHEMA 可能改变了当前模式，出错时也可能已部分执行
+            DMSessionMetadata session = sessionMetadata;
+            if (session != null && statements != null) {
+                for (SqlStatement statement : statements) {
+                    if (DMSessionMetadata.changesSession(statement)) {
+                        session.invalidate();
+                        break;
+                    }
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,122 @@
+package liquibase.database.core;
+
+import liquibase.Scope;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 达梦关键字表，不可变、JVM 内共享。第一次查找关键字时按驱动和服务器版本各加载一次，之后的连接不再读取
+ * getSQLKeywords；离线连接、尚未查找过或读取失败时使用随插件打包的关键字。
+ * 查找忽略大小写，用开放寻址的数组实现，不创建大写副本。
+ */
+final class DMReservedWords {
+
+    // 驱动不返回但需要转义的词
+    private static final String[] EXTRA_WORDS = {"GROUP", "USER", "SESSION", "PASSWORD", "RESOURCE", "START", "SIZE", "UID", "DESC", "ORDER"};
+
+    // DmJdbcDriver18 8.1 的 getSQLKeywords()，拆分去重后的结果
+    private static final String[] DRIVER_WORDS = {
+            "BREAK", "BROWSE", "BULK", "CHECKPOINT", "CLUSTERED", "COMMITTED", "COMPUTE", "CONFIRM", "CONTROLROW", "DATABASE",
+            "DBCC", "DISK", "DISTRIBUTED", "DUMMY", "DUMP", "ERRLVL", "ERROREXIT", "EXIT", "FILE", "FILLFACTOR", "FLOPPY",
+            "HOLDLOCK", "IDENTITY_INSERT", "IDENTITYCOL", "IF", "KILL", "LINENO", "LOAD", "MIRROREXIT", "NONCLUSTERED", "OFF",
+            "OFFSETS", "ONCE", "OVER", "PERCENT", "PERM", "PERMANENT", "PLAN", "PRINT", "AFTER", "ASSIGN", "AUDIT", "BEFORE",
+            "BITMAP", "CACHE", "CALL", "CHAIN", "CLUSTER", "CYCLE", "DATAFILE", "DEBUG", "#DECODE", "#DELETING", "DISABLE",
+            "EACH", "ELSEIF", "END", "EXCLUSIVE", "FUNCTION", "HEXTORAW", "IDENTIFIED", "IFNULL", "INCREASE", "INDEX", "INITIAL",
+            "INTENTION", "ISNULL", "ISOPEN", "MAXVALUE", "MINVALUE", "MODIFY", "NATURAL", "NEW", "NEXT", "NOAUDIT", "NOCACHE",
+            "NOCYCLE", "NOTFOUND", "NVL", "OLD", "OUT", "PENDANT", "PRIOR", "RAISE", "RAWTOHEX", "READ", "RENAME", "RETURN",
+            "REVERSE", "ROLE", "ROWCOUNT", "ROWNUM", "SAVEPOINT", "SERIALIZABLE", "SEQUENCE", "SHARE", "STATEMENT", "TIES",
+            "TIMESTAMPADD", "TIMESTAMPDIFF", "TOP", "TRIGGER", "TRIGGERS", "TRUNCATE", "TYPECAST", "UNCOMMITED", "UNTIL", "VSIZE",
+            "WHILE", "LOGIN", "EXTERNALLY", "SESSION_PER_USER", "CONNECT_IDLE_TIME", "FAILED_LOGIN_ATTEMPS", "PASSWORD_LIFE_TIME",
+            "PASSWORD_REUSE_TIME", "PASSWORD_REUSE_MAX", "PASSWORD_LOCK_TIME", "PASSWORD_GRACE_TIME", "POLICY", "CATEGORY",
+            "UNLIMITED"
+    };
+
+    private static final DMReservedWords PACKAGED = new DMReservedWords(Arrays.asList(DRIVER_WORDS));
+    private static final ConcurrentMap<String, DMReservedWords> BY_VERSION = new ConcurrentHashMap<>();
+
+    private final String[] table;
+    private final int mask;
+
+    private DMReservedWords(Iterable<String> driverWords) {
+        Set<String> words = new LinkedHashSet<>(Arrays.asList(EXTRA_WORDS));
+        for (String word : driverWords) {
+            String trimmed = word.trim();
+            if (!trimmed.isEmpty()) {
+                words.add(trimmed.toUpperCase(Locale.ROOT));
+            }
+        }
+        int size = Integer.highestOneBit(Math.max(words.size(), 1) * 4);
+        this.table = new String[size];
+        this.mask = size - 1;
+        for (String word : words) {
+            int index = hash(word) & mask;
+            while (table[index] != null) {
+                index = (index + 1) & mask;
+            }
+            table[index] = word;
+        }
+    }
+
+    /**
+     * 随插件打包的关键字，不需要连接
+     */
+    static DMReservedWords packaged() {
+        return PACKAGED;
+    }
+
+    /**
+     * 连接对应的驱动和服务器版本的关键字，每个版本只调用一次 getSQLKeywords
+     */
+    static DMReservedWords forMetaData(DatabaseMetaData metaData) {
+        String version;
+        try {
+            version = metaData.getDriverName() + " " + metaData.getDriverVersion() + " / " + metaData.getDatabaseProductVersion();
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(DMReservedWords.class).warning("Could not get driver version on DM Database: " + e.getMessage());
+            return PACKAGED;
+        }
+        return BY_VERSION.computeIfAbsent(version, key -> {
+            try {
+                return new DMReservedWords(Arrays.asList(metaData.getSQLKeywords().split(",\\s*")));
+            } catch (SQLException e) {
+                //noinspection HardCodedStringLiteral
+                Scope.getCurrentScope().getLog(DMReservedWords.class).warning("Could get sql keywords on DM Database: " + e.getMessage());
+                return PACKAGED;
+            }
+        });
+    }
+
+    /**
+     * 忽略大小写判断是否为关键字
+     */
+    boolean contains(String name) {
+        if (name == null) {
+            return false;
+        }
+        int index = hash(name) & mask;
+        String word;
+        while ((word = table[index]) != null) {
+            if (word.length() == name.length() && word.regionMatches(true, 0, name, 0, name.length())) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    // 按大写字符计算，与 String.hashCode 的算法相同
+    private static int hash(String text) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + Character.toUpperCase(text.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
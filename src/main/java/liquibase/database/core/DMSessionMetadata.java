@@ -0,0 +1,99 @@
+package liquibase.database.core;
+
+import liquibase.Scope;
+import liquibase.database.DatabaseConnection;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawParameterizedSqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * 一个连接的会话信息：服务器版本和当前模式。setConnection 时一次查询取得，
+ * 版本在连接内不变；执行 ALTER SESSION / SET SCHEMA 后当前模式失效，下次使用时重新查询。
+ */
+final class DMSessionMetadata {
+
+    private static final String SESSION_SQL = "select sys_context('userenv', 'current_schema') from dual";
+    private static final Pattern SESSION_CHANGE_PATTERN = Pattern.compile("\\bALTER\\s+SESSION\\b|\\bSET\\s+SCHEMA\\b", Pattern.CASE_INSENSITIVE);
+
+    // 驱动返回的版本无法解析时按 DM8 处理
+    private static final int DEFAULT_MAJOR_VERSION = 8;
+
+    private final int majorVersion;
+    private final int minorVersion;
+    private volatile String currentSchema;
+
+    private DMSessionMetadata(int majorVersion, int minorVersion) {
+        this.majorVersion = majorVersion;
+        this.minorVersion = minorVersion;
+    }
+
+    /**
+     * 读取连接的版本；sqlConnection 不为 null 时同时查询当前模式，失败时留待之后按需查询
+     */
+    static DMSessionMetadata load(DatabaseConnection connection, Connection sqlConnection) {
+        int major;
+        int minor;
+        try {
+            major = connection.getDatabaseMajorVersion();
+            minor = connection.getDatabaseMinorVersion();
+        } catch (Exception e) {
+            // Fallback for drivers that return invalid version strings
+            major = DEFAULT_MAJOR_VERSION;
+            minor = 0;
+        }
+        DMSessionMetadata metadata = new DMSessionMetadata(major, minor);
+        if (sqlConnection != null) {
+            try (Statement statement = sqlConnection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(SESSION_SQL)) {
+                if (resultSet.next()) {
+                    metadata.currentSchema = resultSet.getString(1);
+                }
+            } catch (SQLException e) {
+                Scope.getCurrentScope().getLog(DMSessionMetadata.class).fine("Could not prefetch DM session metadata: " + e.getMessage());
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * 语句是否可能改变会话的当前模式等状态
+     */
+    static boolean changesSession(SqlStatement statement) {
+        String sql = null;
+        if (statement instanceof RawSqlStatement) {
+            sql = ((RawSqlStatement) statement).getSql();
+        } else if (statement instanceof RawParameterizedSqlStatement) {
+            sql = ((RawParameterizedSqlStatement) statement).getSql();
+        }
+        return sql != null && SESSION_CHANGE_PATTERN.matcher(sql).find();
+    }
+
+    int getMajorVersion() {
+        return majorVersion;
+    }
+
+    int getMinorVersion() {
+        return minorVersion;
+    }
+
+    /**
+     * 当前模式，未知或已失效时为 null
+     */
+    String getCurrentSchema() {
+        return currentSchema;
+    }
+
+    void setCurrentSchema(String currentSchema) {
+        this.currentSchema = currentSchema;
+    }
+
+    void invalidate() {
+        currentSchema = null;
+    }
+}
@@ -0,0 +1,27 @@
+package liquibase.database.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行快照的线程。Java 8 上为固定数量的守护线程；多版本 jar 中 Java 21 的同名类改用虚拟线程，
+ * 两者的并发连接数都由 {@link DMConnectionPool} 限制。
+ */
+public final class SnapshotExecutors {
+
+    private SnapshotExecutors() {
+    }
+
+    /**
+     * 创建执行字典查询的线程池，threads 为连接池大小
+     */
+    public static ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
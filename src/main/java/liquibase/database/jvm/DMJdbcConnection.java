@@ -0,0 +1,58 @@
+package liquibase.database.jvm;
+
+import liquibase.exception.DatabaseException;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.util.Properties;
+
+/**
+ * 达梦的 JDBC 连接：记住打开时的 URL 和驱动属性（user、password），
+ * 并行快照和只读副本的额外连接使用与主连接相同的账号，不必另外配置
+ */
+public class DMJdbcConnection extends JdbcConnection {
+
+    private String openUrl;
+    private Properties openProperties;
+
+    public DMJdbcConnection() {
+    }
+
+    public DMJdbcConnection(Connection connection) {
+        super(connection);
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY_DATABASE;
+    }
+
+    @Override
+    public boolean supports(String url) {
+        return url != null && url.startsWith("jdbc:dm:");
+    }
+
+    @Override
+    public void open(String url, Driver driverObject, Properties driverProperties) throws DatabaseException {
+        super.open(url, driverObject, driverProperties);
+        this.openUrl = url;
+        this.openProperties = new Properties();
+        if (driverProperties != null) {
+            this.openProperties.putAll(driverProperties);
+        }
+    }
+
+    /**
+     * 打开连接时使用的 URL，未经 open 打开（直接包装已有连接）时返回 null
+     */
+    public String getOpenUrl() {
+        return openUrl;
+    }
+
+    /**
+     * 打开连接时的驱动属性副本，未经 open 打开时返回 null
+     */
+    public Properties getOpenProperties() {
+        return openProperties == null ? null : (Properties) openProperties.clone();
+    }
+}
@@ -0,0 +1,151 @@
+package liquibase.diff.compare.core;
+
+import liquibase.database.Database;
+import liquibase.diff.ObjectDifferences;
+import liquibase.diff.compare.CompareControl;
+import liquibase.diff.compare.DatabaseObjectComparator;
+import liquibase.diff.compare.DatabaseObjectComparatorChain;
+import liquibase.diff.output.changelog.DiffToChangeLog;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.jvm.SourceBody;
+import liquibase.snapshot.jvm.SourceBodyNormalizer;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Trigger;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 存储过程、触发器源码比较：不逐字符比较 body，而是比较规范化后的 SHA-256 摘要。
+ * 摘要按源码文本缓存，只计算一次，不写回对象；hash 模式的快照直接带有摘要。
+ */
+public class SourceBodyComparator implements DatabaseObjectComparator {
+
+    // 源码文本 -> 摘要，弱引用键随快照对象一起回收
+    private static final Map<String, String> DIGESTS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, String> STRIPPED_DIGESTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+        if (StoredProcedure.class.isAssignableFrom(objectType) || Trigger.class.isAssignableFrom(objectType)) {
+            return PRIORITY_TYPE;
+        }
+        return PRIORITY_NONE;
+    }
+
+    @Override
+    public boolean isSameObject(DatabaseObject databaseObject1, DatabaseObject databaseObject2, Database accordingTo, DatabaseObjectComparatorChain chain) {
+        return chain.isSameObject(databaseObject1, databaseObject2, accordingTo);
+    }
+
+    @Override
+    public String[] hash(DatabaseObject databaseObject, Database accordingTo, DatabaseObjectComparatorChain chain) {
+        // 与默认比较器相同只按名称分桶（查找用的示例对象可能没有 schema），使用预先算好的规范化名称
+        if (databaseObject instanceof Trigger) {
+            return new String[]{((Trigger) databaseObject).getCanonicalName()};
+        }
+        if (databaseObject instanceof StoredProcedure) {
+            String name = databaseObject.getName();
+            return new String[]{name == null ? "null" : name.toLowerCase(Locale.US)};
+        }
+        return chain.hash(databaseObject, accordingTo);
+    }
+
+    @Override
+    public ObjectDifferences findDifferences(DatabaseObject databaseObject1, DatabaseObject databaseObject2, Database accordingTo, CompareControl compareControl, DatabaseObjectComparatorChain chain, Set<String> exclude) {
+        // 源码相关属性由这里比较，其余属性交给默认比较器
+        Set<String> chainExclude = new HashSet<>(exclude);
+        chainExclude.add(SourceBody.BODY_ATTRIBUTE);
+        chainExclude.add(SourceBody.DIGEST_ATTRIBUTE);
+        chainExclude.add(SourceBody.LENGTH_ATTRIBUTE);
+        chainExclude.add(SourceBody.COMPRESSED_ATTRIBUTE);
+        // 依赖顺序只用于排列生成的变更，两个库中的值不可比
+        chainExclude.add(DiffToChangeLog.ORDER_ATTRIBUTE);
+        ObjectDifferences differences = chain.findDifferences(databaseObject1, databaseObject2, accordingTo, compareControl, chainExclude);
+        if (exclude.contains(SourceBody.BODY_ATTRIBUTE)) {
+            return differences;
+        }
+        String digest1 = getDigest(databaseObject1);
+        String digest2 = getDigest(databaseObject2);
+        if (!Objects.equals(digest1, digest2)) {
+            differences.addDifference(SourceBody.BODY_ATTRIBUTE, describe(databaseObject1, digest1), describe(databaseObject2, digest2));
+        }
+        return differences;
+    }
+
+    /**
+     * 规范化源码的摘要，同一段源码只计算一次；对象没有源码时返回 null。
+     * 计算结果不写回对象，避免 bodyDigest 出现在完整模式快照的序列化结果中
+     */
+    static String getDigest(DatabaseObject object) {
+        String digest = object.getAttribute(SourceBody.DIGEST_ATTRIBUTE, String.class);
+        if (digest != null) {
+            return digest;
+        }
+        String body = object.getAttribute(SourceBody.BODY_ATTRIBUTE, String.class);
+        if (body == null) {
+            return null;
+        }
+        // 是否去掉注释会改变摘要，两种设置分别缓存
+        Map<String, String> digests = ChineseDbSnapshotConfiguration.BODY_STRIP_COMMENTS.getCurrentValue() ? STRIPPED_DIGESTS : DIGESTS;
+        digest = digests.get(body);
+        if (digest == null) {
+            digest = SourceBodyNormalizer.digest(body);
+            digests.put(body, digest);
+        }
+        return digest;
+    }
+
+    // 差异报告中只展示摘要和长度，不读取或解压全文
+    private Object describe(DatabaseObject object, String digest) {
+        return new BodyDescription(object, digest);
+    }
+
+    /**
+     * 差异报告中的源码，toString 为摘要和长度，需要全文时由 {@link #getText()} 从对象读取
+     */
+    static final class BodyDescription {
+        private final DatabaseObject object;
+        private final String digest;
+
+        private BodyDescription(DatabaseObject object, String digest) {
+            this.object = object;
+            this.digest = digest;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public Long getLength() {
+            Number length = object.getAttribute(SourceBody.LENGTH_ATTRIBUTE, Number.class);
+            if (length != null) {
+                return length.longValue();
+            }
+            String body = object.getAttribute(SourceBody.BODY_ATTRIBUTE, String.class);
+            return body == null ? null : (long) body.length();
+        }
+
+        /**
+         * 全文，hash 模式下为 null
+         */
+        public String getText() {
+            return SourceBody.readText(object);
+        }
+
+        @Override
+        public String toString() {
+            if (digest == null) {
+                return "null";
+            }
+            Long length = getLength();
+            return "sha256:" + digest + (length == null ? "" : " (" + length + " chars)");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package liquibase.diff.core;
+
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 达梦表的 {@link TableDataComparator.ChunkSource}：每列单独 ORA_HASH（以列序号为种子），各列的哈希相加后取模作为行哈希，
+ * 不拼接整行文本，宽表不会超出字符串长度限制；区间哈希为 COUNT(*) 和 SUM(行哈希)，拆分点用 ROW_NUMBER() 在服务端选出，只传回主键值。
+ * 日期时间和数值列按固定格式转为文本，行哈希不受会话的 NLS 设置影响。CLOB 等大文本列用 DBMS_LOB 取长度和首尾各
+ * {@value #LOB_SAMPLE_LENGTH} 个字符计算，长度不变且只改了中间部分的不会被发现。
+ * BLOB、RAW 等二进制列不参与行哈希，只改了二进制列的行不会被发现；取回的行中仍包含二进制列，生成的 insert 不会丢列。
+ */
+public class DMTableChunkSource implements TableDataComparator.ChunkSource {
+
+    private static final Set<String> BINARY_TYPES = new HashSet<>(Arrays.asList("BLOB", "IMAGE", "LONGVARBINARY", "BINARY", "VARBINARY", "RAW", "BFILE"));
+    private static final Set<String> NUMERIC_TYPES = new HashSet<>(Arrays.asList("NUMBER", "NUMERIC", "DECIMAL", "DEC", "FLOAT", "DOUBLE", "DOUBLE PRECISION", "REAL"));
+    private static final Set<String> LOB_TYPES = new HashSet<>(Arrays.asList("CLOB", "NCLOB", "TEXT", "LONG", "LONGVARCHAR"));
+    private static final String NUMBER_FORMAT = "'TM9', 'NLS_NUMERIC_CHARACTERS=''.,'''";
+    // ORA_HASH 的最大桶号，NULL 列取 HASH_RANGE，与任何哈希值都不同
+    private static final String MAX_BUCKET = "4294967295";
+    private static final String HASH_RANGE = "4294967296";
+    // 多字节字符集下 1000 个字符不超过 VARCHAR 的长度上限
+    static final int LOB_SAMPLE_LENGTH = 1000;
+
+    private final Connection connection;
+    private final String table;
+    private final String key;
+    private final Map<String, String> columns;
+
+    /**
+     * columns 为列名 -> ALL_TAB_COLUMNS.DATA_TYPE，按列的顺序排列，见 {@link #findColumns}
+     */
+    public DMTableChunkSource(Connection connection, String schemaName, String tableName, String keyColumn, Map<String, String> columns) {
+        this.connection = connection;
+        this.table = quote(schemaName) + "." + quote(tableName);
+        this.key = keyColumn;
+        this.columns = columns;
+    }
+
+    /**
+     * 表的单列主键，没有主键或为复合主键时返回 null
+     */
+    public static String findKeyColumn(Connection connection, String schemaName, String tableName) throws SQLException {
+        List<String> keys = queryStrings(connection, "SELECT C.COLUMN_NAME FROM ALL_CONSTRAINTS K JOIN ALL_CONS_COLUMNS C ON C.OWNER = K.OWNER AND C.CONSTRAINT_NAME = K.CONSTRAINT_NAME "
+                + "WHERE K.CONSTRAINT_TYPE = 'P' AND K.OWNER = ? AND K.TABLE_NAME = ?", schemaName, tableName);
+        return keys.size() == 1 ? keys.get(0) : null;
+    }
+
+    /**
+     * 表的全部列及其 DATA_TYPE，按 COLUMN_ID 排序
+     */
+    public static Map<String, String> findColumns(Connection connection, String schemaName, String tableName) throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT COLUMN_NAME, DATA_TYPE FROM ALL_TAB_COLUMNS WHERE OWNER = ? AND TABLE_NAME = ? ORDER BY COLUMN_ID")) {
+            preparedStatement.setString(1, schemaName);
+            preparedStatement.setString(2, tableName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    columns.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public TableDataComparator.ChunkHash hash(Object from, Object to) throws SQLException {
+        try (PreparedStatement preparedStatement = prepare("SELECT COUNT(*), SUM(" + rowHash() + ") FROM " + table + where(from, to), from, to);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return new TableDataComparator.ChunkHash(resultSet.getLong(1), resultSet.getLong(2));
+        }
+    }
+
+    @Override
+    public List<Object> splitKeys(Object from, Object to, long step) throws SQLException {
+        List<Object> keys = new ArrayList<>();
+        String sql = "SELECT K FROM (SELECT " + quote(key) + " AS K, ROW_NUMBER() OVER (ORDER BY " + quote(key) + ") AS RN FROM " + table + where(from, to) + ") "
+                + "WHERE MOD(RN, " + step + ") = 0 ORDER BY K";
+        try (PreparedStatement preparedStatement = prepare(sql, from, to);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.add(resultSet.getObject(1));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 区间内的行，包含二进制列。BLOB 读成 byte[]，CLOB 读成 String，结果集关闭后仍可使用
+     */
+    @Override
+    public List<Map<String, Object>> rows(Object from, Object to) throws SQLException {
+        List<String> names = new ArrayList<>(columns.keySet());
+        List<String> quoted = new ArrayList<>(names.size());
+        for (String column : names) {
+            quoted.add(quote(column));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement preparedStatement = prepare("SELECT " + String.join(", ", quoted) + " FROM " + table + where(from, to) + " ORDER BY " + quote(key), from, to);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= names.size(); i++) {
+                    row.put(names.get(i - 1), read(resultSet.getObject(i)));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // 各列哈希之和对 HASH_RANGE 取模；种子为列序号，值互换的两列得到不同的哈希。二进制列不参与
+    String rowHash() {
+        List<String> terms = new ArrayList<>();
+        int seed = 0;
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            seed++;
+            String type = baseType(column.getValue());
+            if (BINARY_TYPES.contains(type)) {
+                continue;
+            }
+            terms.add(LOB_TYPES.contains(type) ? lobHash(column.getKey(), seed)
+                    : "NVL(ORA_HASH(" + toText(column.getKey(), column.getValue()) + ", " + MAX_BUCKET + ", " + seed + "), " + HASH_RANGE + ")");
+        }
+        return "MOD(" + String.join(" + ", terms) + ", " + HASH_RANGE + ")";
+    }
+
+    // 大文本列：长度加上首尾两段的哈希，不把整个 LOB 转为字符串
+    private static String lobHash(String column, int seed) {
+        String quoted = quote(column);
+        String length = "DBMS_LOB.GETLENGTH(" + quoted + ")";
+        return "NVL(" + length
+                + " + ORA_HASH(DBMS_LOB.SUBSTR(" + quoted + ", " + LOB_SAMPLE_LENGTH + ", 1), " + MAX_BUCKET + ", " + seed + ")"
+                + " + ORA_HASH(DBMS_LOB.SUBSTR(" + quoted + ", " + LOB_SAMPLE_LENGTH + ", GREATEST(" + length + " - " + (LOB_SAMPLE_LENGTH - 1) + ", 1)), " + MAX_BUCKET + ", " + seed + "), "
+                + HASH_RANGE + ")";
+    }
+
+    // 列值转为文本：日期时间和数值使用固定格式，结果与 NLS_DATE_FORMAT、NLS_TIMESTAMP_FORMAT、NLS_NUMERIC_CHARACTERS 无关
+    private static String toText(String column, String dataType) {
+        String type = baseType(dataType);
+        String format;
+        if (type.equals("DATE")) {
+            format = "'YYYY-MM-DD HH24:MI:SS'";
+        } else if (type.startsWith("TIMESTAMP") || type.startsWith("DATETIME")) {
+            format = type.endsWith("WITH TIME ZONE") ? "'YYYY-MM-DD HH24:MI:SS.FF6 TZH:TZM'" : "'YYYY-MM-DD HH24:MI:SS.FF6'";
+        } else if (type.startsWith("TIME")) {
+            format = type.endsWith("WITH TIME ZONE") ? "'HH24:MI:SS.FF6 TZH:TZM'" : "'HH24:MI:SS.FF6'";
+        } else if (NUMERIC_TYPES.contains(type)) {
+            format = NUMBER_FORMAT;
+        } else {
+            return "TO_CHAR(" + quote(column) + ")";
+        }
+        return "TO_CHAR(" + quote(column) + ", " + format + ")";
+    }
+
+    // 去掉精度，如 TIMESTAMP(6) WITH TIME ZONE -> TIMESTAMP WITH TIME ZONE
+    private static String baseType(String dataType) {
+        return dataType == null ? "" : dataType.toUpperCase(Locale.US).replaceAll("\\(\\s*\\d+(\\s*,\\s*\\d+)?\\s*\\)", "").replaceAll("\\s+", " ").trim();
+    }
+
+    private static Object read(Object value) throws SQLException {
+        if (value instanceof Blob) {
+            return ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+        }
+        if (value instanceof Clob) {
+            return ((Clob) value).getSubString(1, (int) ((Clob) value).length());
+        }
+        return value;
+    }
+
+    private String where(Object from, Object to) {
+        if (from == null && to == null) {
+            return "";
+        }
+        String quoted = quote(key);
+        if (from == null) {
+            return " WHERE " + quoted + " < ?";
+        }
+        return to == null ? " WHERE " + quoted + " >= ?" : " WHERE " + quoted + " >= ? AND " + quoted + " < ?";
+    }
+
+    private PreparedStatement prepare(String sql, Object from, Object to) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        try {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            int index = 1;
+            if (from != null) {
+                preparedStatement.setObject(index++, from);
+            }
+            if (to != null) {
+                preparedStatement.setObject(index, to);
+            }
+            return preparedStatement;
+        } catch (SQLException e) {
+            preparedStatement.close();
+            throw e;
+        }
+    }
+
+    private static List<String> queryStrings(Connection connection, String sql, String schemaName, String tableName) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, schemaName);
+            preparedStatement.setString(2, tableName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(resultSet.getString(1));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,197 @@
+package liquibase.diff.core;
+
+import liquibase.change.core.LoadDataChange;
+import liquibase.change.core.LoadDataColumnConfig;
+import liquibase.util.ISODateFormat;
+import liquibase.util.JdbcUtil;
+import liquibase.util.csv.CSVWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 把达梦表的数据按 loadData 的 CSV 格式写出。有单列主键时按主键分页（WHERE 主键 > 上一页最后的值），
+ * 每页一次查询，不使用 OFFSET，也不长时间占用一个游标；没有主键时退回单条流式查询。
+ * 行直接写入输出，内存占用与表大小无关。
+ */
+public class DMTableDataExporter {
+
+    private final Connection connection;
+    private final String table;
+    private final String keyColumn;
+    private final int pageSize;
+    private final int fetchSize;
+    private final List<LoadDataColumnConfig> columns = new ArrayList<>();
+    private long rowCount;
+
+    /**
+     * keyColumn 为 null 时不分页
+     */
+    public DMTableDataExporter(Connection connection, String schemaName, String tableName, String keyColumn, int pageSize, int fetchSize) {
+        this.connection = connection;
+        this.table = quote(schemaName) + "." + quote(tableName);
+        this.keyColumn = keyColumn;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 写出表头和全部行，返回行数。不关闭 writer
+     */
+    public long export(Writer writer) throws SQLException, IOException {
+        CSVWriter csv = new CSVWriter(writer);
+        columns.clear();
+        rowCount = 0;
+        if (keyColumn == null) {
+            try (PreparedStatement preparedStatement = prepare("SELECT * FROM " + table, null)) {
+                writePage(csv, preparedStatement);
+            }
+        } else {
+            Object lastKey = null;
+            do {
+                String sql = "SELECT TOP " + pageSize + " * FROM " + table
+                        + (lastKey == null ? "" : " WHERE " + quote(keyColumn) + " > ?")
+                        + " ORDER BY " + quote(keyColumn);
+                try (PreparedStatement preparedStatement = prepare(sql, lastKey)) {
+                    lastKey = writePage(csv, preparedStatement);
+                }
+            } while (lastKey != null);
+        }
+        csv.flush();
+        return rowCount;
+    }
+
+    /**
+     * 写出的列，类型取自结果集元数据，可直接加到 loadData 中
+     */
+    public List<LoadDataColumnConfig> getColumns() {
+        return columns;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // 返回本页最后一行的主键；不足一页或不分页时返回 null，表示已经写完
+    private Object writePage(CSVWriter csv, PreparedStatement preparedStatement) throws SQLException, IOException {
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            if (columns.isEmpty()) {
+                writeHeader(csv, metaData);
+            }
+            int keyIndex = keyColumn == null ? -1 : resultSet.findColumn(keyColumn);
+            String[] line = new String[metaData.getColumnCount()];
+            Object lastKey = null;
+            int rows = 0;
+            while (resultSet.next()) {
+                for (int i = 0; i < line.length; i++) {
+                    line[i] = toText(JdbcUtil.getResultSetValue(resultSet, i + 1));
+                }
+                csv.writeNext(line);
+                if (keyIndex > 0) {
+                    lastKey = resultSet.getObject(keyIndex);
+                }
+                rows++;
+            }
+            rowCount += rows;
+            csv.flush();
+            return rows < pageSize ? null : lastKey;
+        }
+    }
+
+    private void writeHeader(CSVWriter csv, ResultSetMetaData metaData) throws SQLException {
+        String[] header = new String[metaData.getColumnCount()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = metaData.getColumnName(i + 1);
+            LoadDataColumnConfig column = new LoadDataColumnConfig();
+            column.setHeader(header[i]);
+            column.setName(header[i]);
+            column.setType(toLoadDataType(metaData.getColumnType(i + 1)));
+            columns.add(column);
+        }
+        csv.writeNext(header);
+    }
+
+    private PreparedStatement prepare(String sql, Object lastKey) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            preparedStatement.setFetchSize(fetchSize);
+            if (lastKey != null) {
+                preparedStatement.setObject(1, lastKey);
+            }
+            return preparedStatement;
+        } catch (SQLException e) {
+            preparedStatement.close();
+            throw e;
+        }
+    }
+
+    // 与 generateChangeLog --data-output-directory 生成的 CSV 取值方式相同
+    private static String toText(Object value) throws SQLException {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Date) {
+            return new ISODateFormat().format((Date) value);
+        }
+        if (value instanceof Blob) {
+            value = ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof Clob) {
+            return ((Clob) value).getSubString(1, (int) ((Clob) value).length());
+        }
+        return value.toString();
+    }
+
+    private static LoadDataChange.LOAD_DATA_TYPE toLoadDataType(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return LoadDataChange.LOAD_DATA_TYPE.NUMERIC;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return LoadDataChange.LOAD_DATA_TYPE.BOOLEAN;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return LoadDataChange.LOAD_DATA_TYPE.DATE;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return LoadDataChange.LOAD_DATA_TYPE.BLOB;
+            case Types.CLOB:
+            case Types.NCLOB:
+                return LoadDataChange.LOAD_DATA_TYPE.CLOB;
+            default:
+                return LoadDataChange.LOAD_DATA_TYPE.STRING;
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,259 @@
+package liquibase.diff.core;
+
+import liquibase.change.Change;
+import liquibase.change.ColumnConfig;
+import liquibase.change.core.DeleteDataChange;
+import liquibase.change.core.InsertDataChange;
+import liquibase.change.core.UpdateDataChange;
+import liquibase.statement.DatabaseFunction;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 按主键区间比较两张表的数据：两边各在服务端计算区间的行数和行哈希之和，一致的区间不再传输；
+ * 不一致的区间按参考表（或行数更多一侧）的主键分成若干段递归比较，区间足够小时才取回行，
+ * 生成 insert / update / delete 变更。网络传输量与差异行数有关，与表大小基本无关。
+ */
+public class TableDataComparator {
+
+    // 每次拆分的段数
+    static final int FANOUT = 16;
+    // 两边行数都不超过该值时直接取回行比较
+    static final int ROW_THRESHOLD = 500;
+
+    private final ChunkSource reference;
+    private final ChunkSource target;
+    private final String keyColumn;
+    private final List<Change> changes = new ArrayList<>();
+    private String schemaName;
+    private String tableName;
+    private int chunksCompared;
+    private long rowsFetched;
+
+    public TableDataComparator(ChunkSource reference, ChunkSource target, String keyColumn) {
+        this.reference = reference;
+        this.target = target;
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * 使目标表与参考表一致所需的变更，按主键区间顺序
+     */
+    public List<Change> compare(String schemaName, String tableName) throws SQLException {
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        changes.clear();
+        compareRange(null, null);
+        return new ArrayList<>(changes);
+    }
+
+    /**
+     * 比较过的区间数，两边各计算一次哈希
+     */
+    public int getChunksCompared() {
+        return chunksCompared;
+    }
+
+    /**
+     * 两边共取回的行数
+     */
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    // [from, to)，null 表示不限
+    private void compareRange(Object from, Object to) throws SQLException {
+        chunksCompared++;
+        ChunkHash referenceHash = reference.hash(from, to);
+        ChunkHash targetHash = target.hash(from, to);
+        if (referenceHash.equals(targetHash)) {
+            return;
+        }
+        if (Math.max(referenceHash.getCount(), targetHash.getCount()) <= ROW_THRESHOLD) {
+            compareRows(from, to);
+            return;
+        }
+        // 按行数多的一侧拆分，保证每一段都比当前区间小
+        ChunkSource larger = referenceHash.getCount() >= targetHash.getCount() ? reference : target;
+        long count = Math.max(referenceHash.getCount(), targetHash.getCount());
+        List<Object> splitKeys = larger.splitKeys(from, to, (count + FANOUT - 1) / FANOUT);
+        Object lower = from;
+        for (Object splitKey : splitKeys) {
+            compareRange(lower, splitKey);
+            lower = splitKey;
+        }
+        compareRange(lower, to);
+    }
+
+    private void compareRows(Object from, Object to) throws SQLException {
+        Map<String, Map<String, Object>> targetRows = new LinkedHashMap<>();
+        for (Map<String, Object> row : target.rows(from, to)) {
+            targetRows.put(normalize(row.get(keyColumn)), row);
+        }
+        List<Map<String, Object>> referenceRows = reference.rows(from, to);
+        rowsFetched += targetRows.size() + referenceRows.size();
+        for (Map<String, Object> row : referenceRows) {
+            Map<String, Object> targetRow = targetRows.remove(normalize(row.get(keyColumn)));
+            if (targetRow == null) {
+                changes.add(insert(row));
+            } else {
+                UpdateDataChange update = update(row, targetRow);
+                if (update != null) {
+                    changes.add(update);
+                }
+            }
+        }
+        for (Map<String, Object> row : targetRows.values()) {
+            changes.add(delete(row));
+        }
+    }
+
+    private InsertDataChange insert(Map<String, Object> row) {
+        InsertDataChange change = new InsertDataChange();
+        change.setSchemaName(schemaName);
+        change.setTableName(tableName);
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            change.addColumn(toColumnConfig(column.getKey(), column.getValue()));
+        }
+        return change;
+    }
+
+    // 只更新值不同的列，全部相同时返回 null
+    private UpdateDataChange update(Map<String, Object> row, Map<String, Object> targetRow) {
+        UpdateDataChange change = null;
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            if (!Objects.equals(normalize(column.getValue()), normalize(targetRow.get(column.getKey())))) {
+                if (change == null) {
+                    change = new UpdateDataChange();
+                    change.setSchemaName(schemaName);
+                    change.setTableName(tableName);
+                    change.setWhere(":name = :value");
+                    change.addWhereParam(toColumnConfig(keyColumn, row.get(keyColumn)));
+                }
+                change.addColumn(toColumnConfig(column.getKey(), column.getValue()));
+            }
+        }
+        return change;
+    }
+
+    private DeleteDataChange delete(Map<String, Object> row) {
+        DeleteDataChange change = new DeleteDataChange();
+        change.setSchemaName(schemaName);
+        change.setTableName(tableName);
+        change.setWhere(":name = :value");
+        change.addWhereParam(toColumnConfig(keyColumn, row.get(keyColumn)));
+        return change;
+    }
+
+    private static ColumnConfig toColumnConfig(String name, Object value) {
+        ColumnConfig column = new ColumnConfig();
+        column.setName(name);
+        if (value instanceof Number) {
+            column.setValueNumeric((Number) value);
+        } else if (value instanceof Date) {
+            column.setValueDate((Date) value);
+        } else if (value instanceof Boolean) {
+            column.setValueBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            // 达梦的十六进制二进制常量
+            column.setValueComputed(new DatabaseFunction("0x" + toHex((byte[]) value)));
+        } else if (value != null) {
+            column.setValue(value.toString());
+        }
+        return column;
+    }
+
+    // 数值按大小比较（1 与 1.0 相同），二进制按内容比较，其余按字符串形式比较
+    private static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return toHex((byte[]) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString().toUpperCase(Locale.US);
+    }
+
+    /**
+     * 一侧的表数据，区间为 [from, to)，null 表示不限
+     */
+    public interface ChunkSource {
+
+        /**
+         * 区间的行数和行哈希之和，在服务端计算
+         */
+        ChunkHash hash(Object from, Object to) throws SQLException;
+
+        /**
+         * 区间内按主键排序后每 step 行取一个主键，作为拆分点
+         */
+        List<Object> splitKeys(Object from, Object to, long step) throws SQLException;
+
+        /**
+         * 区间内的全部行，列名 -> 值
+         */
+        List<Map<String, Object>> rows(Object from, Object to) throws SQLException;
+    }
+
+    public static final class ChunkHash {
+        private final long count;
+        private final long hash;
+
+        public ChunkHash(long count, long hash) {
+            this.count = count;
+            this.hash = hash;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ChunkHash)) {
+                return false;
+            }
+            ChunkHash that = (ChunkHash) obj;
+            return count == that.count && hash == that.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, hash);
+        }
+
+        @Override
+        public String toString() {
+            return count + "/" + hash;
+        }
+    }
+}
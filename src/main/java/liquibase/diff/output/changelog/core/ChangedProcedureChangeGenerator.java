@@ -1,5 +1,6 @@
 package liquibase.diff.output.changelog.core;
 
+import liquibase.Scope;
 import liquibase.change.Change;
 import liquibase.change.core.AlterProcedureChange;
 import liquibase.database.Database;
@@ -8,8 +9,14 @@ import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.AbstractChangeGenerator;
 import liquibase.diff.output.changelog.ChangeGeneratorChain;
 import liquibase.diff.output.changelog.ChangedObjectChangeGenerator;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.snapshot.jvm.ProcedureSnapshotGenerator;
+import liquibase.snapshot.jvm.SourceBody;
 import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Sequence;
 import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Table;
 
 public class ChangedProcedureChangeGenerator extends AbstractChangeGenerator implements ChangedObjectChangeGenerator {
     @Override
@@ -21,14 +28,33 @@ public class ChangedProcedureChangeGenerator extends AbstractChangeGenerator imp
         StoredProcedure storedProcedure = (StoredProcedure) changedObject;
         //此处只需要比较一个存储过程的body是否相同，如果不相同则生成change
         //如果要比较多个元素，则需要多个change
+        //body 的差异由 SourceBodyComparator 按规范化后的摘要判断，只有确实需要生成change时才读取全文
         if (differences.isDifferent("body")) {
+            String procedureText = getProcedureText(storedProcedure, referenceDatabase);
+            if (procedureText == null) {
+                Scope.getCurrentScope().getLog(getClass()).warning("Body of procedure " + storedProcedure.getName() + " is not available in the reference snapshot, skipping alter");
+                return null;
+            }
             AlterProcedureChange alterProcedureChange = createAlterProcedureChange(storedProcedure, control);
-            alterProcedureChange.setProcedureText(storedProcedure.getBody());
+            alterProcedureChange.setProcedureText(procedureText);
             return new Change[]{alterProcedureChange};
         }
         return null;
     }
 
+    //hash 模式的快照中只有摘要，此时从参考库读取全文
+    private String getProcedureText(StoredProcedure storedProcedure, Database referenceDatabase) {
+        String text = SourceBody.readText(storedProcedure);
+        if (text != null) {
+            return text;
+        }
+        try {
+            return new ProcedureSnapshotGenerator().readBodyText(storedProcedure, referenceDatabase);
+        } catch (DatabaseException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
     @Override
     public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
         if (StoredProcedure.class.isAssignableFrom(objectType)) {
@@ -37,9 +63,10 @@ public class ChangedProcedureChangeGenerator extends AbstractChangeGenerator imp
         return PRIORITY_NONE;
     }
 
+    // 与 MissingProcedureChangeGenerator 相同，在表、序列变更之后重新编译，与视图之间不声明先后
     @Override
     public Class<? extends DatabaseObject>[] runAfterTypes() {
-        return null;
+        return new Class[]{Table.class, Sequence.class};
     }
 
     @Override
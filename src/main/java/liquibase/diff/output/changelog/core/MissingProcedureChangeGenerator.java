@@ -1,5 +1,6 @@
 package liquibase.diff.output.changelog.core;
 
+import liquibase.Scope;
 import liquibase.change.Change;
 import liquibase.change.core.CreateProcedureChange;
 import liquibase.database.Database;
@@ -7,8 +8,13 @@ import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.AbstractChangeGenerator;
 import liquibase.diff.output.changelog.ChangeGeneratorChain;
 import liquibase.diff.output.changelog.MissingObjectChangeGenerator;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.jvm.ProcedureSnapshotGenerator;
 import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Sequence;
 import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Table;
+import liquibase.util.StringUtil;
 
 public class MissingProcedureChangeGenerator extends AbstractChangeGenerator implements MissingObjectChangeGenerator {
 
@@ -33,11 +39,30 @@ public class MissingProcedureChangeGenerator extends AbstractChangeGenerator imp
         if (control.getIncludeSchema()) {
             change.setSchemaName(storedProcedure.getSchema().getName());
         }
-        String procedureText = storedProcedure.getBody();
-        change.setProcedureText(procedureText);
+        String text = getProcedureText(storedProcedure, referenceDatabase);
+        if (text == null) {
+            return null;
+        }
+        change.setProcedureText(text);
         return new Change[]{change};
     }
 
+    //hash 模式的快照中只有摘要，此时从参考库读取全文；参考库也取不到时返回 null，不生成没有源码的 createProcedure
+    private String getProcedureText(StoredProcedure storedProcedure, Database referenceDatabase) {
+        String text;
+        try {
+            text = new ProcedureSnapshotGenerator().readBodyText(storedProcedure, referenceDatabase);
+        } catch (DatabaseException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Cannot read body of procedure " + storedProcedure.getName() + " from the reference database, skipping createProcedure: " + e.getMessage());
+            return null;
+        }
+        if (StringUtil.isEmpty(text)) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Body of procedure " + storedProcedure.getName() + " is not available in the reference snapshot or database, skipping createProcedure");
+            return null;
+        }
+        return text;
+    }
+
     @Override
     public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
         if (StoredProcedure.class.isAssignableFrom(objectType)) {
@@ -46,9 +71,13 @@ public class MissingProcedureChangeGenerator extends AbstractChangeGenerator imp
         return PRIORITY_NONE;
     }
 
+    // 存储过程、函数在它们引用的表、序列之后创建，避免编译为 INVALID。
+    // 视图可能调用函数，函数也可能查询视图，按类型排序无法同时满足，所以不声明与视图的先后：
+    // 视图和存储过程之间的顺序由核心按类型决定，查询视图的存储过程可能先于视图创建而处于 INVALID，
+    // 需要在视图创建后重新编译（达梦在第一次调用时也会自动重新编译）
     @Override
     public Class<? extends DatabaseObject>[] runAfterTypes() {
-        return null;
+        return new Class[]{Table.class, Sequence.class};
     }
 
     @Override
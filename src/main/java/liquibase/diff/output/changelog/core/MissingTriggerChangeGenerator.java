@@ -1,5 +1,6 @@
 package liquibase.diff.output.changelog.core;
 
+import liquibase.Scope;
 import liquibase.change.Change;
 import liquibase.change.core.CreateTriggerChange;
 import liquibase.database.Database;
@@ -7,8 +8,14 @@ import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.AbstractChangeGenerator;
 import liquibase.diff.output.changelog.ChangeGeneratorChain;
 import liquibase.diff.output.changelog.MissingObjectChangeGenerator;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.jvm.TriggerSnapshotGenerator;
 import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Table;
 import liquibase.structure.core.Trigger;
+import liquibase.structure.core.View;
+import liquibase.util.StringUtil;
 
 
 public class MissingTriggerChangeGenerator extends AbstractChangeGenerator implements MissingObjectChangeGenerator {
@@ -29,11 +36,30 @@ public class MissingTriggerChangeGenerator extends AbstractChangeGenerator imple
         if (control.getIncludeSchema()) {
             change.setSchemaName(trigger.getSchema().getName());
         }
-        String triggerText = trigger.getBody();
-        change.setTriggerText(triggerText);
+        String text = getTriggerText(trigger, referenceDatabase);
+        if (text == null) {
+            return null;
+        }
+        change.setTriggerText(text);
         return new Change[]{change};
     }
 
+    //hash 模式的快照中只有摘要，此时从参考库读取全文；参考库也取不到时返回 null，不生成没有源码的 createTrigger
+    private String getTriggerText(Trigger trigger, Database referenceDatabase) {
+        String text;
+        try {
+            text = new TriggerSnapshotGenerator().readBodyText(trigger, referenceDatabase);
+        } catch (DatabaseException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Cannot read body of trigger " + trigger.getName() + " from the reference database, skipping createTrigger: " + e.getMessage());
+            return null;
+        }
+        if (StringUtil.isEmpty(text)) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Body of trigger " + trigger.getName() + " is not available in the reference snapshot or database, skipping createTrigger");
+            return null;
+        }
+        return text;
+    }
+
     @Override
     public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
         if (Trigger.class.isAssignableFrom(objectType)) { //注意，此处类型要对应，即objectType为structure包中抽象出来的数据库结构
@@ -42,9 +68,10 @@ public class MissingTriggerChangeGenerator extends AbstractChangeGenerator imple
         return PRIORITY_NONE;
     }
 
+    // 触发器在所属表、视图和它调用的存储过程之后创建
     @Override
     public Class<? extends DatabaseObject>[] runAfterTypes() {
-        return null;
+        return new Class[]{Table.class, View.class, StoredProcedure.class};
     }
 
     @Override
@@ -0,0 +1,87 @@
+package liquibase.parser.core.compact;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.OfflineConnection;
+import liquibase.exception.LiquibaseParseException;
+import liquibase.parser.SnapshotParser;
+import liquibase.parser.core.ParsedNode;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+import liquibase.serializer.core.compact.CompactSnapshotFormat;
+import liquibase.serializer.core.compact.CompactSnapshotSerializer;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.RestoredDatabaseSnapshot;
+import liquibase.util.StreamUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 读取 {@link CompactSnapshotSerializer} 生成的 .csnap 快照，还原过程与 YamlSnapshotParser 相同。
+ * 文件可以是 gzip 二进制，也可以是 snapshot 命令输出的 Base64 文本。
+ */
+public class CompactSnapshotParser implements SnapshotParser {
+
+    // gzip 魔数的第一个字节
+    private static final int GZIP_FIRST_BYTE = 0x1f;
+
+    @Override
+    public int getPriority() {
+        return PRIORITY_DEFAULT;
+    }
+
+    @Override
+    public boolean supports(String path, ResourceAccessor resourceAccessor) {
+        return path.toLowerCase().endsWith("." + CompactSnapshotSerializer.EXTENSION);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DatabaseSnapshot parse(String path, ResourceAccessor resourceAccessor) throws LiquibaseParseException {
+        try {
+            Resource resource = resourceAccessor.get(path);
+            if (resource == null || !resource.exists()) {
+                throw new LiquibaseParseException(path + " does not exist");
+            }
+            Object tree;
+            try (InputStream stream = resource.openInputStream()) {
+                tree = read(StreamUtil.readStream(stream));
+            }
+            Map<String, Object> rootList = tree instanceof Map ? (Map<String, Object>) ((Map<String, Object>) tree).get("snapshot") : null;
+            if (rootList == null) {
+                throw new LiquibaseParseException("Could not find root snapshot node");
+            }
+            String shortName = (String) ((Map<String, Object>) rootList.get("database")).get("shortName");
+            Database database = DatabaseFactory.getInstance().getDatabase(shortName).getClass().getConstructor().newInstance();
+            database.setConnection(new OfflineConnection("offline:" + shortName, null));
+
+            RestoredDatabaseSnapshot snapshot = new RestoredDatabaseSnapshot(database);
+            ParsedNode snapshotNode = new ParsedNode(null, "snapshot");
+            snapshotNode.setValue(rootList);
+            Map<String, Object> metadata = (Map<String, Object>) rootList.get("metadata");
+            if (metadata != null) {
+                snapshot.getMetadata().putAll(metadata);
+            }
+            snapshot.load(snapshotNode, resourceAccessor);
+            return snapshot;
+        } catch (LiquibaseParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LiquibaseParseException(e);
+        }
+    }
+
+    private Object read(byte[] content) throws IOException {
+        if (content.length > 0 && (content[0] & 0xff) != GZIP_FIRST_BYTE) {
+            content = Base64.getMimeDecoder().decode(content);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return CompactSnapshotFormat.read(in);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package liquibase.serializer.core.compact;
+
+import liquibase.statement.DatabaseFunction;
+import liquibase.util.ISODateFormat;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑快照格式的编解码：与 YAML / JSON 快照相同的 Map、List 树，按类型标记写成二进制。
+ * 较短的字符串（对象名、类型名、snapshotId 引用等）第一次出现时写入全文并编号，之后只写编号，
+ * 存储过程、触发器源码等长字符串直接写入。数字、日期、枚举和函数与 YAML 快照一样写成 "值!{类名}"，
+ * 由 AbstractDatabaseObject.load 还原类型。压缩由调用方负责。
+ */
+public final class CompactSnapshotFormat {
+
+    private static final byte[] MAGIC = {'L', 'B', 'C', 'S'};
+    private static final int VERSION = 1;
+
+    // 超过该长度的字符串不进入字符串表
+    private static final int MAX_INTERNED_LENGTH = 256;
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int STRING = 3;
+    private static final int STRING_REF = 4;
+    private static final int LIST = 5;
+    private static final int MAP = 6;
+    private static final int LONG_STRING = 7;
+
+    private CompactSnapshotFormat() {
+    }
+
+    public static void write(Object tree, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        new Writer(data).writeValue(tree);
+        data.flush();
+    }
+
+    public static Object read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a compact snapshot");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compact snapshot version " + version);
+        }
+        return new Reader(data).readValue();
+    }
+
+    /**
+     * 与 YamlSnapshotSerializer 的 TypeStoringAsStringRepresenter 相同的标量表示
+     */
+    static String toTypedString(Object value) {
+        String text;
+        if (value instanceof java.util.Date) {
+            text = new ISODateFormat().format((java.util.Date) value);
+        } else if (value instanceof Enum) {
+            text = ((Enum<?>) value).name();
+        } else {
+            text = value.toString();
+        }
+        return text + "!{" + value.getClass().getName() + "}";
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof String) {
+                writeString((String) value);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                writeSize(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                out.writeByte(LIST);
+                writeSize(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Number || value instanceof java.util.Date || value instanceof Enum || value instanceof DatabaseFunction) {
+                writeString(toTypedString(value));
+            } else {
+                writeString(value.toString());
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value.length() > MAX_INTERNED_LENGTH) {
+                out.writeByte(LONG_STRING);
+                writeText(value);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                out.writeByte(STRING_REF);
+                writeSize(index);
+            } else {
+                strings.put(value, strings.size());
+                out.writeByte(STRING);
+                writeText(value);
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeSize(bytes.length);
+            out.write(bytes);
+        }
+
+        // 无符号变长整数，每字节 7 位
+        private void writeSize(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case STRING:
+                case STRING_REF:
+                case LONG_STRING:
+                    return readString(tag);
+                case MAP: {
+                    int size = readSize();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        String key = readString(in.readUnsignedByte());
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                case LIST: {
+                    int size = readSize();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                default:
+                    throw new IOException("Corrupt compact snapshot: unknown tag " + tag);
+            }
+        }
+
+        private String readString(int tag) throws IOException {
+            switch (tag) {
+                case STRING: {
+                    String value = readText();
+                    strings.add(value);
+                    return value;
+                }
+                case STRING_REF: {
+                    int index = readSize();
+                    if (index >= strings.size()) {
+                        throw new IOException("Corrupt compact snapshot: string reference " + index + " out of range");
+                    }
+                    return strings.get(index);
+                }
+                case LONG_STRING:
+                    return readText();
+                default:
+                    throw new IOException("Corrupt compact snapshot: expected string but found tag " + tag);
+            }
+        }
+
+        private String readText() throws IOException {
+            byte[] bytes = new byte[readSize()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readSize() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt compact snapshot: size too long");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package liquibase.serializer.core.yaml;
+
+import liquibase.serializer.LiquibaseSerializable;
+import liquibase.snapshot.jvm.CompressedBody;
+
+/**
+ * YAML 快照输出压缩保存的源码全文，bodyMode 为 COMPRESSED 时与 FULL 模式的输出相同
+ */
+public class YamlSnapshotSerializerChineseDb extends YamlSnapshotSerializer {
+
+    @Override
+    protected Object toMap(LiquibaseSerializable object) {
+        return CompressedBody.expand(object, super.toMap(object));
+    }
+
+    @Override
+    public int getPriority() {
+        return super.getPriority() + 1;
+    }
+}
@@ -0,0 +1,109 @@
+package liquibase.snapshot;
+
+import liquibase.configuration.AutoloadedConfigurations;
+import liquibase.configuration.ConfigurationDefinition;
+import liquibase.configuration.ConfigurationValueObfuscator;
+
+/**
+ * 国产数据库快照相关配置，统一使用 liquibase.chinesedb.snapshot 前缀
+ */
+public class ChineseDbSnapshotConfiguration implements AutoloadedConfigurations {
+
+    public static final ConfigurationDefinition<Boolean> PREFETCH_BODIES;
+    public static final ConfigurationDefinition<Integer> PREFETCH_THRESHOLD;
+    public static final ConfigurationDefinition<Integer> FETCH_SIZE;
+    public static final ConfigurationDefinition<Boolean> PARALLEL;
+    public static final ConfigurationDefinition<Integer> PARALLEL_CONNECTIONS;
+    public static final ConfigurationDefinition<String> PARALLEL_SCHEMAS;
+    public static final ConfigurationDefinition<String> USERNAME;
+    public static final ConfigurationDefinition<String> PASSWORD;
+    public static final ConfigurationDefinition<BodyMode> BODY_MODE;
+    public static final ConfigurationDefinition<Boolean> BODY_STRIP_COMMENTS;
+    public static final ConfigurationDefinition<String> CACHE_DIRECTORY;
+    public static final ConfigurationDefinition<String> INCLUDE_OBJECTS;
+    public static final ConfigurationDefinition<String> EXCLUDE_OBJECTS;
+    public static final ConfigurationDefinition<Boolean> METADATA_DDL;
+    public static final ConfigurationDefinition<String> READ_URL;
+    public static final ConfigurationDefinition<String> READ_URL_PRIMARY;
+    public static final ConfigurationDefinition<String> REFERENCE_READ_URL;
+    public static final ConfigurationDefinition<String> REFERENCE_READ_URL_PRIMARY;
+
+    static {
+        ConfigurationDefinition.Builder builder = new ConfigurationDefinition.Builder("liquibase.chinesedb.snapshot");
+        PREFETCH_BODIES = builder.define("prefetchBodies", Boolean.class)
+                .setDescription("If true, stored procedure bodies are loaded for a whole schema with a single DBA_SOURCE query instead of one query per object")
+                .setDefaultValue(true)
+                .build();
+        PREFETCH_THRESHOLD = builder.define("prefetchThreshold", Integer.class)
+                .setDescription("Minimum number of objects in a schema before bodies are prefetched in bulk. Smaller schemas keep the per-object lookup")
+                .setDefaultValue(10)
+                .build();
+        FETCH_SIZE = builder.define("fetchSize", Integer.class)
+                .setDescription("JDBC fetch size used by the streaming dictionary queries")
+                .setDefaultValue(500)
+                .build();
+        PARALLEL = builder.define("parallel", Boolean.class)
+                .setDescription("If true, DM dictionary queries of a snapshot run concurrently on a small pool of extra connections opened from the same URL. "
+                        + "Queries of one schema overlap each other; different schemas only overlap when listed in parallelSchemas")
+                .setDefaultValue(false)
+                .build();
+        PARALLEL_CONNECTIONS = builder.define("parallelConnections", Integer.class)
+                .setDescription("Maximum number of extra connections opened for a parallel snapshot")
+                .setDefaultValue(4)
+                .build();
+        PARALLEL_SCHEMAS = builder.define("parallelSchemas", String.class)
+                .setDescription("Comma separated schemas to prefetch as soon as a parallel snapshot starts, normally the same list passed to --schemas. "
+                        + "Liquibase snapshots schemas one after another, so a schema not listed here is only queried when its turn comes")
+                .build();
+        USERNAME = builder.define("username", String.class)
+                .setDescription("Overrides the user of the extra snapshot and read replica connections. Defaults to the user of the database they belong to")
+                .build();
+        PASSWORD = builder.define("password", String.class)
+                .setDescription("Overrides the password of the extra snapshot and read replica connections. Defaults to the password the database they belong to was opened with")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD)
+                .build();
+        BODY_MODE = builder.define("bodyMode", BodyMode.class)
+                .setDescription("FULL keeps procedure and trigger source text in the snapshot. HASH keeps only a SHA-256 digest of the normalized text and its length, which is enough for drift detection. COMPRESSED keeps the text deflated in memory, shared between identical bodies, and inflates it only when a change is generated or the snapshot is serialized")
+                .setDefaultValue(BodyMode.FULL)
+                .build();
+        BODY_STRIP_COMMENTS = builder.define("bodyStripComments", Boolean.class)
+                .setDescription("If true, -- and /* */ comments are ignored when procedure and trigger bodies are normalized for comparison. Line endings and trailing whitespace are always ignored")
+                .setDefaultValue(false)
+                .build();
+        CACHE_DIRECTORY = builder.define("cacheDirectory", String.class)
+                .setDescription("Directory for the incremental body cache. When set, DM and Oracle procedure and trigger bodies are only re-read for objects whose ALL_OBJECTS.LAST_DDL_TIME changed since the previous snapshot of the same URL and schema")
+                .build();
+        INCLUDE_OBJECTS = builder.define("includeObjects", String.class)
+                .setDescription("Objects to read from the procedure and trigger dictionary queries, same syntax as --include-objects. Patterns that map to LIKE, such as APP_.*, become WHERE predicates; other patterns are left to the diff filter")
+                .addAliasKey("liquibase.command.includeObjects")
+                .build();
+        EXCLUDE_OBJECTS = builder.define("excludeObjects", String.class)
+                .setDescription("Objects to skip in the procedure and trigger dictionary queries, same syntax as --exclude-objects. Patterns that map to LIKE become NOT LIKE predicates")
+                .addAliasKey("liquibase.command.excludeObjects")
+                .build();
+        METADATA_DDL = builder.define("metadataDdl", Boolean.class)
+                .setDescription("If true, DM procedure, trigger and view definitions are taken from DBMS_METADATA.GET_DDL with one query per object type and schema instead of being assembled from DBA_SOURCE and ALL_VIEWS. The schema-qualified CREATE header it produces is normalized away before bodies are compared, but any other reformatting by the server is not, so prefer comparing snapshots taken with the same setting")
+                .setDefaultValue(false)
+                .build();
+        READ_URL = builder.define("readUrl", String.class)
+                .setDescription("JDBC URL of a DM read-only replica of the database at readUrlPrimary. Dictionary queries of snapshots and diffs of that database, including the parallel snapshot connections, run there with its credentials, while locks, the changelog history tables and DDL stay on the primary connection")
+                .build();
+        READ_URL_PRIMARY = builder.define("readUrlPrimary", String.class)
+                .setDescription("JDBC URL of the primary database that readUrl replicates. Defaults to the url command argument. Databases opened with any other URL keep their dictionary queries on their own connection")
+                .addAliasKey("liquibase.command.url")
+                .build();
+        REFERENCE_READ_URL = builder.define("referenceReadUrl", String.class)
+                .setDescription("JDBC URL of a DM read-only replica of the database at referenceReadUrlPrimary, used like readUrl for the reference side of a diff")
+                .build();
+        REFERENCE_READ_URL_PRIMARY = builder.define("referenceReadUrlPrimary", String.class)
+                .setDescription("JDBC URL of the primary database that referenceReadUrl replicates. Defaults to the referenceUrl command argument")
+                .addAliasKey("liquibase.command.referenceUrl")
+                .build();
+    }
+
+    public enum BodyMode {
+        FULL,
+        HASH,
+        COMPRESSED
+    }
+}
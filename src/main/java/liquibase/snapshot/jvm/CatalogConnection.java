@@ -0,0 +1,31 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+
+import java.sql.Connection;
+
+/**
+ * 快照和比较时字典查询使用的连接。达梦库配置了自己的只读副本（readUrl 或 referenceReadUrl）时为副本上的连接，
+ * 其余情况为主连接；锁、变更历史表和 DDL 不经过这里，始终在主连接上执行
+ */
+final class CatalogConnection {
+
+    private CatalogConnection() {
+    }
+
+    /**
+     * 非 JDBC 连接（如离线快照）时返回 null
+     */
+    static Connection of(Database database) throws DatabaseException {
+        if (database instanceof DMDatabase && ((DMDatabase) database).getReadUrl() != null) {
+            return ((DMDatabase) database).getReadConnection();
+        }
+        if (database.getConnection() instanceof JdbcConnection) {
+            return ((JdbcConnection) database.getConnection()).getWrappedConnection();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,138 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.serializer.LiquibaseSerializable;
+import liquibase.structure.DatabaseObject;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * compressed 模式下保存的源码：deflate 压缩的 UTF-8 字节，读取时才解压，解压结果不缓存。
+ * 全文相同的源码（大量由模板生成的触发器、各模式中重复的过程）按 SHA-256 共用同一个实例，
+ * 不再被任何快照对象引用的实例随 GC 从共享表中移除。
+ */
+public final class CompressedBody {
+
+    private static final Map<String, Entry> STORE = new HashMap<>();
+    private static final ReferenceQueue<CompressedBody> QUEUE = new ReferenceQueue<>();
+
+    private final byte[] data;
+    private final int byteLength;
+
+    private CompressedBody(byte[] data, int byteLength) {
+        this.data = data;
+        this.byteLength = byteLength;
+    }
+
+    /**
+     * 压缩源码，全文相同时返回已有的实例
+     */
+    public static CompressedBody of(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String key = SourceBodyBuilder.toHex(SourceBodyBuilder.newDigest().digest(bytes));
+        synchronized (STORE) {
+            expunge();
+            Entry entry = STORE.get(key);
+            CompressedBody body = entry == null ? null : entry.get();
+            if (body == null) {
+                body = new CompressedBody(deflate(bytes), bytes.length);
+                STORE.put(key, new Entry(key, body));
+            }
+            return body;
+        }
+    }
+
+    public String inflate() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] bytes = new byte[byteLength];
+            int read = 0;
+            while (read < byteLength && !inflater.finished()) {
+                read += inflater.inflate(bytes, read, byteLength - read);
+            }
+            return new String(bytes, 0, read, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new UnexpectedLiquibaseException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 压缩后占用的字节数
+     */
+    public int getCompressedLength() {
+        return data.length;
+    }
+
+    /**
+     * 序列化结果中用解压后的 body 代替压缩对象。serialized 为 YamlSerializer.toMap 的结果，
+     * 对象作为引用输出时为字符串，不做处理
+     */
+    @SuppressWarnings("unchecked")
+    public static Object expand(LiquibaseSerializable object, Object serialized) {
+        if (!(object instanceof DatabaseObject) || !(serialized instanceof Map)) {
+            return serialized;
+        }
+        CompressedBody body = ((DatabaseObject) object).getAttribute(SourceBody.COMPRESSED_ATTRIBUTE, CompressedBody.class);
+        if (body == null) {
+            return serialized;
+        }
+        for (Object fields : ((Map<String, Object>) serialized).values()) {
+            if (fields instanceof Map) {
+                ((Map<String, Object>) fields).remove(SourceBody.COMPRESSED_ATTRIBUTE);
+                ((Map<String, Object>) fields).put(SourceBody.BODY_ATTRIBUTE, body.inflate());
+            }
+        }
+        return serialized;
+    }
+
+    // 文本快照、差异报告等直接输出属性值的地方看到的是源码
+    @Override
+    public String toString() {
+        return inflate();
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void expunge() {
+        Entry entry;
+        while ((entry = (Entry) QUEUE.poll()) != null) {
+            if (STORE.get(entry.key) == entry) {
+                STORE.remove(entry.key);
+            }
+        }
+    }
+
+    private static final class Entry extends WeakReference<CompressedBody> {
+        private final String key;
+
+        private Entry(String key, CompressedBody body) {
+            super(body, QUEUE);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package liquibase.snapshot.jvm;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 达梦数据字典元数据：列、索引、主键、唯一约束、外键各用一条 ALL_* 字典查询取回整个模式，
+ * 由 {@link SchemaMetadataCache} 放进快照的 ResultSetCache
+ */
+final class DMDictionaryMetadata {
+
+    private static final Map<SchemaMetadataCache.Type, String> SQL = new EnumMap<>(SchemaMetadataCache.Type.class);
+
+    static {
+        SQL.put(SchemaMetadataCache.Type.COLUMNS,
+                "SELECT C.OWNER AS TABLE_SCHEM, C.TABLE_NAME, C.COLUMN_NAME, C.COLUMN_ID AS ORDINAL_POSITION, C.DATA_TYPE AS TYPE_NAME, "
+                        + "CASE WHEN C.DATA_PRECISION IS NOT NULL THEN C.DATA_PRECISION WHEN C.CHAR_LENGTH > 0 THEN C.CHAR_LENGTH ELSE C.DATA_LENGTH END AS COLUMN_SIZE, "
+                        + "C.DATA_SCALE AS DECIMAL_DIGITS, C.DATA_LENGTH, CASE C.NULLABLE WHEN 'N' THEN 0 ELSE 1 END AS NULLABLE, "
+                        + "C.DATA_DEFAULT AS COLUMN_DEF, M.COMMENTS AS REMARKS, CASE WHEN I.COLUMN_NAME IS NULL THEN 'NO' ELSE 'YES' END AS IS_AUTOINCREMENT "
+                        + "FROM ALL_TAB_COLUMNS C "
+                        + "LEFT JOIN ALL_COL_COMMENTS M ON M.OWNER = C.OWNER AND M.TABLE_NAME = C.TABLE_NAME AND M.COLUMN_NAME = C.COLUMN_NAME "
+                        // 自增列：SYSCOLUMNS.INFO2 最低位
+                        + "LEFT JOIN (SELECT S.NAME AS OWNER, O.NAME AS TABLE_NAME, SC.NAME AS COLUMN_NAME FROM SYSCOLUMNS SC "
+                        + "JOIN SYSOBJECTS O ON O.ID = SC.ID JOIN SYSOBJECTS S ON S.ID = O.SCHID WHERE SC.INFO2 & 0x01 = 0x01) I "
+                        + "ON I.OWNER = C.OWNER AND I.TABLE_NAME = C.TABLE_NAME AND I.COLUMN_NAME = C.COLUMN_NAME "
+                        + "WHERE C.OWNER = ? ORDER BY C.TABLE_NAME, C.COLUMN_ID");
+        SQL.put(SchemaMetadataCache.Type.INDEXES,
+                "SELECT C.INDEX_NAME, 3 AS TYPE, C.TABLE_OWNER AS TABLE_SCHEM, C.TABLE_NAME, C.COLUMN_NAME, C.COLUMN_POSITION AS ORDINAL_POSITION, "
+                        + "CASE I.UNIQUENESS WHEN 'UNIQUE' THEN 0 ELSE 1 END AS NON_UNIQUE, "
+                        + "CASE C.DESCEND WHEN 'Y' THEN 'D' WHEN 'DESC' THEN 'D' WHEN 'N' THEN 'A' WHEN 'ASC' THEN 'A' END AS ASC_OR_DESC "
+                        + "FROM ALL_IND_COLUMNS C JOIN ALL_INDEXES I ON I.OWNER = C.INDEX_OWNER AND I.INDEX_NAME = C.INDEX_NAME AND I.TABLE_OWNER = C.TABLE_OWNER "
+                        + "WHERE C.TABLE_OWNER = ? ORDER BY C.INDEX_NAME, ORDINAL_POSITION");
+        SQL.put(SchemaMetadataCache.Type.PRIMARY_KEYS,
+                "SELECT C.OWNER AS TABLE_SCHEM, C.TABLE_NAME, C.COLUMN_NAME, C.POSITION AS KEY_SEQ, C.CONSTRAINT_NAME AS PK_NAME "
+                        + "FROM ALL_CONS_COLUMNS C JOIN ALL_CONSTRAINTS K ON K.OWNER = C.OWNER AND K.CONSTRAINT_NAME = C.CONSTRAINT_NAME AND K.TABLE_NAME = C.TABLE_NAME "
+                        + "WHERE K.CONSTRAINT_TYPE = 'P' AND K.OWNER = ? ORDER BY C.TABLE_NAME, C.POSITION");
+        SQL.put(SchemaMetadataCache.Type.UNIQUE_CONSTRAINTS,
+                "SELECT C.OWNER AS CONSTRAINT_CONTAINER, C.TABLE_NAME, C.CONSTRAINT_NAME, C.COLUMN_NAME, C.POSITION "
+                        + "FROM ALL_CONS_COLUMNS C JOIN ALL_CONSTRAINTS K ON K.OWNER = C.OWNER AND K.CONSTRAINT_NAME = C.CONSTRAINT_NAME AND K.TABLE_NAME = C.TABLE_NAME "
+                        + "WHERE K.CONSTRAINT_TYPE = 'U' AND K.OWNER = ? ORDER BY C.TABLE_NAME, C.CONSTRAINT_NAME, C.POSITION");
+        SQL.put(SchemaMetadataCache.Type.FOREIGN_KEYS,
+                "SELECT P.OWNER AS PKTABLE_SCHEM, P.TABLE_NAME AS PKTABLE_NAME, PC.COLUMN_NAME AS PKCOLUMN_NAME, "
+                        + "F.OWNER AS FKTABLE_SCHEM, F.TABLE_NAME AS FKTABLE_NAME, FC.COLUMN_NAME AS FKCOLUMN_NAME, FC.POSITION AS KEY_SEQ, "
+                        // 更新、删除规则取自 SYSCONS.FACTION，与驱动的 getImportedKeys 一样用 SF_GET_UPD_RULE、SF_GET_DEL_RULE 转换
+                        + "SF_GET_UPD_RULE(S.FACTION) AS UPDATE_RULE, SF_GET_DEL_RULE(S.FACTION) AS DELETE_RULE, F.DELETE_RULE AS DELETE_RULE_NAME, "
+                        + "F.CONSTRAINT_NAME AS FK_NAME, P.CONSTRAINT_NAME AS PK_NAME, "
+                        + "DECODE(F.DEFERRABLE, 'DEFERRABLE', 5, 'NOT DEFERRABLE', 7, 'DEFERRED', 6, 7) AS DEFERRABILITY "
+                        + "FROM ALL_CONS_COLUMNS PC JOIN ALL_CONSTRAINTS P ON PC.OWNER = P.OWNER AND PC.CONSTRAINT_NAME = P.CONSTRAINT_NAME "
+                        + "JOIN ALL_CONSTRAINTS F ON PC.OWNER = F.R_OWNER AND PC.CONSTRAINT_NAME = F.R_CONSTRAINT_NAME "
+                        + "JOIN ALL_CONS_COLUMNS FC ON FC.OWNER = F.OWNER AND FC.CONSTRAINT_NAME = F.CONSTRAINT_NAME AND FC.POSITION = PC.POSITION "
+                        + "LEFT JOIN (SELECT SCH.NAME AS OWNER, O.NAME AS CONSTRAINT_NAME, K.FACTION FROM SYSCONS K "
+                        + "JOIN SYSOBJECTS O ON O.ID = K.ID JOIN SYSOBJECTS SCH ON SCH.ID = O.SCHID WHERE K.TYPE$ = 'F') S "
+                        + "ON S.OWNER = F.OWNER AND S.CONSTRAINT_NAME = F.CONSTRAINT_NAME "
+                        + "WHERE F.OWNER = ? AND P.CONSTRAINT_TYPE IN ('P', 'U') AND F.CONSTRAINT_TYPE = 'R' ORDER BY FKTABLE_NAME, FK_NAME, KEY_SEQ");
+    }
+
+    private static final Map<String, Integer> JDBC_TYPES = new HashMap<>();
+
+    static {
+        putTypes(Types.CHAR, "CHAR", "CHARACTER");
+        putTypes(Types.VARCHAR, "VARCHAR", "VARCHAR2");
+        putTypes(Types.NCHAR, "NCHAR");
+        putTypes(Types.NVARCHAR, "NVARCHAR", "NVARCHAR2");
+        putTypes(Types.NUMERIC, "NUMBER", "NUMERIC");
+        putTypes(Types.DECIMAL, "DEC", "DECIMAL");
+        putTypes(Types.INTEGER, "INT", "INTEGER", "PLS_INTEGER");
+        putTypes(Types.BIGINT, "BIGINT");
+        putTypes(Types.SMALLINT, "SMALLINT");
+        putTypes(Types.TINYINT, "TINYINT", "BYTE");
+        putTypes(Types.BIT, "BIT");
+        putTypes(Types.BOOLEAN, "BOOLEAN", "BOOL");
+        putTypes(Types.DOUBLE, "FLOAT", "DOUBLE", "DOUBLE PRECISION");
+        putTypes(Types.REAL, "REAL");
+        putTypes(Types.DATE, "DATE");
+        putTypes(Types.TIME, "TIME");
+        putTypes(Types.TIMESTAMP, "TIMESTAMP", "DATETIME");
+        putTypes(Types.TIME_WITH_TIMEZONE, "TIME WITH TIME ZONE");
+        putTypes(Types.TIMESTAMP_WITH_TIMEZONE, "TIMESTAMP WITH TIME ZONE", "DATETIME WITH TIME ZONE", "TIMESTAMP WITH LOCAL TIME ZONE");
+        putTypes(Types.BINARY, "BINARY");
+        putTypes(Types.VARBINARY, "VARBINARY", "RAW");
+        putTypes(Types.LONGVARBINARY, "IMAGE", "LONGVARBINARY");
+        putTypes(Types.LONGVARCHAR, "TEXT", "LONGVARCHAR", "LONG");
+        putTypes(Types.BLOB, "BLOB");
+        putTypes(Types.CLOB, "CLOB");
+        putTypes(Types.NCLOB, "NCLOB");
+    }
+
+    private DMDictionaryMetadata() {
+    }
+
+    private static void putTypes(int jdbcType, String... typeNames) {
+        for (String typeName : typeNames) {
+            JDBC_TYPES.put(typeName, jdbcType);
+        }
+    }
+
+    /**
+     * 执行一类字典查询，返回 DatabaseMetaData 形式的行
+     */
+    static List<Map<String, Object>> load(Connection connection, String schemaName, SchemaMetadataCache.Type type) throws SQLException {
+        List<Map<String, Object>> rows = SchemaMetadataCache.query(connection, SQL.get(type), schemaName);
+        if (type == SchemaMetadataCache.Type.COLUMNS) {
+            for (Map<String, Object> row : rows) {
+                toJdbcColumn(row);
+            }
+        } else if (type == SchemaMetadataCache.Type.FOREIGN_KEYS) {
+            for (Map<String, Object> row : rows) {
+                toJdbcForeignKey(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * UPDATE_RULE、DELETE_RULE 转为 DatabaseMetaData.importedKey* 取值；读不到 SYSCONS 时删除规则取自 ALL_CONSTRAINTS.DELETE_RULE，
+     * 更新规则按 NO ACTION
+     */
+    private static void toJdbcForeignKey(Map<String, Object> row) {
+        Object deleteRuleName = row.remove("DELETE_RULE_NAME");
+        row.put("UPDATE_RULE", toJdbcRule(row.get("UPDATE_RULE")));
+        Object deleteRule = row.get("DELETE_RULE");
+        row.put("DELETE_RULE", toJdbcRule(deleteRule != null ? deleteRule : deleteRuleName));
+    }
+
+    // 规则可能是 importedKey* 数值，也可能是 CASCADE、SET NULL 之类的名称
+    static int toJdbcRule(Object rule) {
+        if (rule instanceof Number) {
+            return ((Number) rule).intValue();
+        }
+        if (rule == null) {
+            return DatabaseMetaData.importedKeyNoAction;
+        }
+        switch (rule.toString().trim().toUpperCase(Locale.ROOT)) {
+            case "0":
+            case "CASCADE":
+                return DatabaseMetaData.importedKeyCascade;
+            case "1":
+            case "RESTRICT":
+                return DatabaseMetaData.importedKeyRestrict;
+            case "2":
+            case "SET NULL":
+                return DatabaseMetaData.importedKeySetNull;
+            case "4":
+            case "SET DEFAULT":
+                return DatabaseMetaData.importedKeySetDefault;
+            default:
+                return DatabaseMetaData.importedKeyNoAction;
+        }
+    }
+
+    /**
+     * 补齐 DatabaseMetaData.getColumns 的 DATA_TYPE、NUM_PREC_RADIX、CHAR_OCTET_LENGTH
+     */
+    private static void toJdbcColumn(Map<String, Object> row) {
+        String typeName = (String) row.get("TYPE_NAME");
+        if (typeName != null) {
+            // TIMESTAMP(6) 之类带精度的类型名
+            typeName = typeName.replaceFirst("\\(\\d+\\)", "").toUpperCase(Locale.ROOT);
+            row.put("TYPE_NAME", typeName);
+        }
+        int jdbcType = JDBC_TYPES.getOrDefault(typeName, Types.OTHER);
+        row.put("DATA_TYPE", jdbcType);
+        Object dataLength = row.remove("DATA_LENGTH");
+        switch (jdbcType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+                row.put("NUM_PREC_RADIX", null);
+                row.put("CHAR_OCTET_LENGTH", dataLength);
+                break;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.DOUBLE:
+            case Types.REAL:
+                row.put("NUM_PREC_RADIX", 10);
+                row.put("CHAR_OCTET_LENGTH", null);
+                break;
+            default:
+                row.put("NUM_PREC_RADIX", null);
+                row.put("CHAR_OCTET_LENGTH", null);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Trigger;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 达梦 DBMS_METADATA.GET_DDL 取定义：每类对象一条查询，在字典视图的每一行上调用 GET_DDL，
+ * 整个模式的定义以 CLOB 列流式返回，不再逐个对象拼接 DBA_SOURCE。模式名通过参数绑定，
+ * 定义所在列统一命名为 DDL。
+ */
+final class DMMetadataDdl {
+
+    static final String DDL_COLUMN = "DDL";
+
+    private DMMetadataDdl() {
+    }
+
+    /**
+     * 配置了 liquibase.chinesedb.snapshot.metadataDdl 且为达梦 JDBC 连接时启用
+     */
+    static boolean isEnabled(Database database) {
+        return ChineseDbSnapshotConfiguration.METADATA_DDL.getCurrentValue()
+                && database instanceof DMDatabase
+                && database.getConnection() instanceof JdbcConnection;
+    }
+
+    // 存储过程和函数：NAME、DDL
+    static String getProcedureSql() {
+        return "SELECT\n" + "\tOBJECT_NAME AS NAME,\n" + "\tDBMS_METADATA.GET_DDL(OBJECT_TYPE, OBJECT_NAME, OWNER) AS DDL\n" + "FROM\n" + "\tALL_OBJECTS\n" + "WHERE\n" + "\tOWNER = ?\n" + "\tAND OBJECT_TYPE IN ('PROCEDURE','FUNCTION')\n"
+                + DictionaryNameFilter.predicates(StoredProcedure.class, "OBJECT_NAME") + DictionaryNameFilter.dmSystemPredicates("OBJECT_NAME", "OWNER") + "ORDER BY\n" + "\tOBJECT_NAME";
+    }
+
+    // 表上的触发器：TRIGGER_NAME、TABLE_NAME、DDL
+    static String getTriggerSql() {
+        return "SELECT\n" + "\tT.TRIGGER_NAME AS TRIGGER_NAME,\n" + "\tT.TABLE_NAME AS TABLE_NAME,\n" + "\tDBMS_METADATA.GET_DDL('TRIGGER', T.TRIGGER_NAME, T.OWNER) AS DDL\n" + "FROM\n" + "\tALL_TRIGGERS T\n" + "WHERE\n" + "\tT.TABLE_OWNER = ?\n" + "\tAND T.BASE_OBJECT_TYPE = 'TABLE'\n"
+                + DictionaryNameFilter.predicates(Trigger.class, "T.TRIGGER_NAME") + DictionaryNameFilter.dmSystemPredicates("T.TRIGGER_NAME", "T.OWNER") + "ORDER BY\n" + "\tT.TRIGGER_NAME";
+    }
+
+    // 视图：VIEW_NAME、DDL、COMMENTS
+    static String getViewSql() {
+        return "SELECT\n" + "\tV.VIEW_NAME,\n" + "\tDBMS_METADATA.GET_DDL('VIEW', V.VIEW_NAME, V.OWNER) AS DDL,\n" + "\tC.COMMENTS\n" + "FROM\n" + "\tALL_VIEWS V\n"
+                + "\tLEFT JOIN ALL_TAB_COMMENTS C ON C.OWNER = V.OWNER AND C.TABLE_NAME = V.VIEW_NAME\n" + "WHERE\n" + "\tV.OWNER = ?";
+    }
+
+    /**
+     * 当前行的定义，CLOB 按字符流读取；fullText 为 false 时按 bodyMode 只保留摘要
+     */
+    static SourceBody read(ResultSet resultSet, boolean fullText) throws SQLException {
+        SourceBodyBuilder builder = fullText ? new SourceBodyBuilder(false, 0) : SourceBodyBuilder.forCurrentMode(0);
+        return builder.appendColumn(resultSet, resultSet.findColumn(DDL_COLUMN)).build();
+    }
+}
@@ -0,0 +1,167 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.diff.output.changelog.DiffToChangeLog;
+import liquibase.structure.core.StoredProcedure;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 按 ALL_DEPENDENCIES 计算模式内存储过程、函数的编译顺序，写入 order 属性。
+ * DiffToChangeLog 对带 order 属性的 StoredDatabaseLogic 按该值排序缺失对象，被依赖的对象先生成，
+ * 互相依赖的对象（环）取相同的值，按名称相邻输出。
+ */
+final class DependencyOrder {
+
+    private static final String SQL = "SELECT NAME, REFERENCED_NAME FROM ALL_DEPENDENCIES WHERE OWNER = ? AND REFERENCED_OWNER = OWNER "
+            + "AND TYPE IN ('PROCEDURE','FUNCTION') AND REFERENCED_TYPE IN ('PROCEDURE','FUNCTION') AND NAME <> REFERENCED_NAME";
+
+    private DependencyOrder() {
+    }
+
+    /**
+     * 一次查询模式的依赖关系，为存储过程设置 order 属性
+     */
+    static void apply(Connection connection, String schemaName, List<StoredProcedure> procedures) throws SQLException {
+        if (procedures.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        for (Map<String, Object> row : SchemaMetadataCache.query(connection, SQL, schemaName)) {
+            dependencies.computeIfAbsent((String) row.get("NAME"), name -> new HashSet<>()).add((String) row.get("REFERENCED_NAME"));
+        }
+        List<String> names = new ArrayList<>(procedures.size());
+        for (StoredProcedure procedure : procedures) {
+            names.add(procedure.getName());
+        }
+        Map<String, Long> ranks = rank(names, dependencies);
+        for (StoredProcedure procedure : procedures) {
+            procedure.setAttribute(DiffToChangeLog.ORDER_ATTRIBUTE, ranks.get(procedure.getName()));
+        }
+    }
+
+    /**
+     * 先用 Tarjan 算法把环合并为强连通分量，再对分量做拓扑排序。
+     * 依赖都已输出的分量中按分量内最小的名称先输出，没有依赖关系的对象保持名称顺序。
+     * 不在 names 中的依赖（其他模式、已过滤的对象）忽略。
+     */
+    static Map<String, Long> rank(Collection<String> names, Map<String, Set<String>> dependencies) {
+        Tarjan tarjan = new Tarjan(new TreeSet<>(names), dependencies);
+        List<TreeSet<String>> components = tarjan.run();
+
+        // 分量之间的依赖：component -> 它依赖的分量
+        Map<Integer, Set<Integer>> dependsOn = new HashMap<>();
+        Map<Integer, Set<Integer>> dependents = new HashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            dependsOn.put(i, new HashSet<>());
+            dependents.put(i, new HashSet<>());
+        }
+        for (int i = 0; i < components.size(); i++) {
+            for (String name : components.get(i)) {
+                for (String referenced : tarjan.dependenciesOf(name)) {
+                    int j = tarjan.componentOf(referenced);
+                    if (j != i && dependsOn.get(i).add(j)) {
+                        dependents.get(j).add(i);
+                    }
+                }
+            }
+        }
+
+        TreeMap<String, Integer> ready = new TreeMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            if (dependsOn.get(i).isEmpty()) {
+                ready.put(components.get(i).first(), i);
+            }
+        }
+        Map<String, Long> ranks = new HashMap<>();
+        long rank = 0;
+        while (!ready.isEmpty()) {
+            int component = ready.pollFirstEntry().getValue();
+            for (String name : components.get(component)) {
+                ranks.put(name, rank);
+            }
+            rank++;
+            for (int dependent : dependents.get(component)) {
+                Set<Integer> remaining = dependsOn.get(dependent);
+                remaining.remove(component);
+                if (remaining.isEmpty()) {
+                    ready.put(components.get(dependent).first(), dependent);
+                }
+            }
+        }
+        return ranks;
+    }
+
+    private static final class Tarjan {
+        private final Set<String> names;
+        private final Map<String, Set<String>> dependencies;
+        private final Map<String, Integer> index = new HashMap<>();
+        private final Map<String, Integer> lowLink = new HashMap<>();
+        private final Map<String, Integer> component = new HashMap<>();
+        private final List<String> stack = new ArrayList<>();
+        private final List<TreeSet<String>> components = new ArrayList<>();
+
+        private Tarjan(Set<String> names, Map<String, Set<String>> dependencies) {
+            this.names = names;
+            this.dependencies = dependencies;
+        }
+
+        private List<TreeSet<String>> run() {
+            for (String name : names) {
+                if (!index.containsKey(name)) {
+                    visit(name);
+                }
+            }
+            return components;
+        }
+
+        private Set<String> dependenciesOf(String name) {
+            Set<String> result = new TreeSet<>();
+            for (String referenced : dependencies.getOrDefault(name, new HashSet<>())) {
+                if (names.contains(referenced)) {
+                    result.add(referenced);
+                }
+            }
+            return result;
+        }
+
+        private int componentOf(String name) {
+            return component.get(name);
+        }
+
+        private void visit(String name) {
+            int current = index.size();
+            index.put(name, current);
+            lowLink.put(name, current);
+            stack.add(name);
+            for (String referenced : dependenciesOf(name)) {
+                if (!index.containsKey(referenced)) {
+                    visit(referenced);
+                    lowLink.put(name, Math.min(lowLink.get(name), lowLink.get(referenced)));
+                } else if (!component.containsKey(referenced)) {
+                    // 仍在栈上
+                    lowLink.put(name, Math.min(lowLink.get(name), index.get(referenced)));
+                }
+            }
+            if (lowLink.get(name) == current) {
+                TreeSet<String> members = new TreeSet<>();
+                String member;
+                do {
+                    member = stack.remove(stack.size() - 1);
+                    members.add(member);
+                    component.put(member, components.size());
+                } while (!member.equals(name));
+                components.add(members);
+            }
+        }
+    }
+}
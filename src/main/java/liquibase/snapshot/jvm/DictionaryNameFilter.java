@@ -0,0 +1,130 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.structure.DatabaseObject;
+import liquibase.util.StringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 includeObjects / excludeObjects 的名称过滤条件转成字典查询的 WHERE 条件，只有相关的行经网络传回。
+ * 语法与 StandardObjectChangeFilter 相同：逗号分隔的正则表达式，可带 "类型:" 前缀，按整个对象名大小写敏感匹配。
+ * 只下推能等价写成 LIKE 的表达式（字面量、.*、.+、.），其余的仍由快照和比较时的过滤器处理，
+ * 所以生成的条件只会多取不会漏取。
+ */
+final class DictionaryNameFilter {
+
+    // LIKE 的转义字符，各数据库字符串里都不需要再转义
+    private static final char ESCAPE = '!';
+
+    private DictionaryNameFilter() {
+    }
+
+    /**
+     * 当前配置下某类对象的名称条件，每个条件一行，以 "\tAND " 开头；没有可下推的条件时返回空串
+     */
+    static String predicates(Class<? extends DatabaseObject> type, String nameColumn) {
+        return predicates(type, nameColumn, ChineseDbSnapshotConfiguration.INCLUDE_OBJECTS.getCurrentValue(), ChineseDbSnapshotConfiguration.EXCLUDE_OBJECTS.getCurrentValue());
+    }
+
+    static String predicates(Class<? extends DatabaseObject> type, String nameColumn, String includeObjects, String excludeObjects) {
+        StringBuilder sql = new StringBuilder();
+        List<String> includes = patternsFor(type, includeObjects);
+        if (includes != null) {
+            List<String> likes = new ArrayList<>(includes.size());
+            for (String pattern : includes) {
+                String like = toLike(pattern);
+                if (like == null) {
+                    // 任一表达式无法下推时不加包含条件
+                    likes = null;
+                    break;
+                }
+                likes.add(nameColumn + " LIKE " + like);
+            }
+            if (likes != null) {
+                // 配置了包含条件但都不适用于该类型时，过滤器会排除全部对象
+                sql.append("\tAND ").append(likes.isEmpty() ? "1 = 0" : "(" + StringUtil.join(likes, " OR ") + ")").append("\n");
+            }
+        }
+        List<String> excludes = patternsFor(type, excludeObjects);
+        if (excludes != null) {
+            for (String pattern : excludes) {
+                String like = toLike(pattern);
+                if (like != null) {
+                    sql.append("\tAND ").append(nameColumn).append(" NOT LIKE ").append(like).append("\n");
+                }
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 与 DMDatabase.isSystemObject 一致：排除回收站对象（BIN$ 开头）和 SYS、CTISYS 模式
+     */
+    static String dmSystemPredicates(String nameColumn, String ownerColumn) {
+        return "\tAND " + nameColumn + " NOT LIKE 'BIN$%'\n" + "\tAND " + ownerColumn + " NOT IN ('SYS', 'CTISYS')\n";
+    }
+
+    /**
+     * 适用于该类型的表达式，未配置时返回 null
+     */
+    private static List<String> patternsFor(Class<? extends DatabaseObject> type, String filter) {
+        filter = StringUtil.trimToNull(filter);
+        if (filter == null) {
+            return null;
+        }
+        List<String> patterns = new ArrayList<>();
+        for (String subfilter : filter.split("\\s*,\\s*")) {
+            String[] split = subfilter.split(":");
+            if (split.length == 1) {
+                patterns.add(split[0]);
+            } else if (split[0].equalsIgnoreCase(type.getSimpleName())) {
+                patterns.add(split[1]);
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * 正则表达式转成带 ESCAPE 子句的 LIKE 字面量，不能等价转换时返回 null
+     */
+    static String toLike(String regex) {
+        StringBuilder like = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '.') {
+                char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+                if (next == '*') {
+                    like.append('%');
+                    i++;
+                } else if (next == '+') {
+                    like.append("_%");
+                    i++;
+                } else {
+                    like.append('_');
+                }
+            } else if (c == '\\') {
+                // 只接受转义的标点，\d、\w 之类的字符类不能转换；反斜杠在 MySQL 字符串里另有含义
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1)) || regex.charAt(i + 1) == '\\') {
+                    return null;
+                }
+                appendLiteral(like, regex.charAt(++i));
+            } else if ("[](){}|?*+^$".indexOf(c) >= 0) {
+                return null;
+            } else {
+                appendLiteral(like, c);
+            }
+        }
+        return "'" + like + "' ESCAPE '" + ESCAPE + "'";
+    }
+
+    private static void appendLiteral(StringBuilder like, char c) {
+        if (c == '%' || c == '_' || c == ESCAPE) {
+            like.append(ESCAPE);
+        } else if (c == '\'') {
+            like.append('\'');
+        }
+        like.append(c);
+    }
+}
@@ -0,0 +1,48 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.InvalidExampleException;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Index;
+import liquibase.structure.core.Schema;
+
+/**
+ * 达梦、人大金仓索引快照：模式被快照时用一次 ALL_IND_COLUMNS / pg_index 查询取回全部索引，各表的索引直接从缓存读取
+ */
+public class IndexSnapshotGeneratorChineseDb extends IndexSnapshotGenerator {
+
+    @Override
+    public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+        int priority = super.getPriority(objectType, database);
+        if (priority > PRIORITY_NONE && (database instanceof DMDatabase || database instanceof KingBaseDatabase)) {
+            priority += PRIORITY_DATABASE;
+        }
+        return priority;
+    }
+
+    @Override
+    public Class<? extends SnapshotGenerator>[] replaces() {
+        return new Class[]{IndexSnapshotGenerator.class};
+    }
+
+    @Override
+    public Class<? extends DatabaseObject>[] addsTo() {
+        return SchemaMetadataCache.withSchema(super.addsTo());
+    }
+
+    @Override
+    protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot) throws DatabaseException, InvalidExampleException {
+        if (foundObject instanceof Schema) {
+            if (snapshot.getSnapshotControl().shouldInclude(Index.class)) {
+                SchemaMetadataCache.prime(snapshot, (Schema) foundObject, SchemaMetadataCache.Type.INDEXES);
+            }
+            return;
+        }
+        super.addTo(foundObject, snapshot);
+    }
+}
@@ -0,0 +1,209 @@
+package liquibase.snapshot.jvm;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 人大金仓系统表元数据：列、索引、主键、唯一约束、外键各用一条 pg_class / pg_attribute / pg_index / pg_constraint 查询取回整个模式，
+ * 由 {@link SchemaMetadataCache} 放进快照的 ResultSetCache。
+ * 系统表不加 pg_catalog 前缀，由 search_path 解析，兼容 sys_catalog 下的同名视图。
+ */
+final class KingBaseCatalogMetadata {
+
+    // 多列索引、约束按列位置展开，上限与 INDEX_MAX_KEYS 一致
+    private static final String KEY_POSITIONS = "generate_series(1, 32) AS k(n)";
+
+    private static final Map<SchemaMetadataCache.Type, String> SQL = new EnumMap<>(SchemaMetadataCache.Type.class);
+
+    static {
+        SQL.put(SchemaMetadataCache.Type.COLUMNS,
+                "SELECT n.nspname AS table_schem, c.relname AS table_name, a.attname AS column_name, a.attnum AS ordinal_position, "
+                        + "t.typname AS type_name, a.atttypmod AS typmod, CASE WHEN a.attnotnull THEN 0 ELSE 1 END AS nullable, "
+                        + "pg_get_expr(d.adbin, d.adrelid) AS column_def, col_description(a.attrelid, a.attnum) AS remarks, "
+                        + "CASE WHEN pg_get_expr(d.adbin, d.adrelid) LIKE 'nextval(%' THEN 'YES' ELSE 'NO' END AS is_autoincrement "
+                        + "FROM pg_attribute a "
+                        + "JOIN pg_class c ON c.oid = a.attrelid "
+                        + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "JOIN pg_type t ON t.oid = a.atttypid "
+                        + "LEFT JOIN pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum "
+                        + "WHERE n.nspname = ? AND c.relkind IN ('r', 'p', 'v', 'm', 'f') AND a.attnum > 0 AND NOT a.attisdropped "
+                        + "ORDER BY c.relname, a.attnum");
+        SQL.put(SchemaMetadataCache.Type.INDEXES,
+                "SELECT n.nspname AS table_schem, ct.relname AS table_name, ci.relname AS index_name, "
+                        + "CASE WHEN i.indisunique THEN 0 ELSE 1 END AS non_unique, CASE WHEN i.indisclustered THEN 1 ELSE 3 END AS type, "
+                        + "k.n AS ordinal_position, pg_get_indexdef(ci.oid, k.n, false) AS column_name, "
+                        + "CASE WHEN am.amname = 'btree' THEN CASE i.indoption[k.n - 1] & 1 WHEN 1 THEN 'D' ELSE 'A' END END AS asc_or_desc "
+                        + "FROM pg_index i "
+                        + "JOIN pg_class ct ON ct.oid = i.indrelid "
+                        + "JOIN pg_namespace n ON n.oid = ct.relnamespace "
+                        + "JOIN pg_class ci ON ci.oid = i.indexrelid "
+                        + "JOIN pg_am am ON am.oid = ci.relam "
+                        + "CROSS JOIN " + KEY_POSITIONS + " "
+                        + "WHERE n.nspname = ? AND k.n <= i.indnatts "
+                        + "ORDER BY ci.relname, k.n");
+        SQL.put(SchemaMetadataCache.Type.PRIMARY_KEYS,
+                "SELECT n.nspname AS table_schem, ct.relname AS table_name, a.attname AS column_name, k.n AS key_seq, con.conname AS pk_name "
+                        + "FROM pg_constraint con "
+                        + "JOIN pg_class ct ON ct.oid = con.conrelid "
+                        + "JOIN pg_namespace n ON n.oid = ct.relnamespace "
+                        + "CROSS JOIN " + KEY_POSITIONS + " "
+                        + "JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = con.conkey[k.n] "
+                        + "WHERE n.nspname = ? AND con.contype = 'p' "
+                        + "ORDER BY ct.relname, k.n");
+        SQL.put(SchemaMetadataCache.Type.UNIQUE_CONSTRAINTS,
+                "SELECT n.nspname AS constraint_container, ct.relname AS table_name, con.conname AS constraint_name, a.attname AS column_name, k.n AS position "
+                        + "FROM pg_constraint con "
+                        + "JOIN pg_class ct ON ct.oid = con.conrelid "
+                        + "JOIN pg_namespace n ON n.oid = ct.relnamespace "
+                        + "CROSS JOIN " + KEY_POSITIONS + " "
+                        + "JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = con.conkey[k.n] "
+                        + "WHERE n.nspname = ? AND con.contype = 'u' "
+                        + "ORDER BY ct.relname, con.conname, k.n");
+        SQL.put(SchemaMetadataCache.Type.FOREIGN_KEYS,
+                "SELECT pn.nspname AS pktable_schem, pc.relname AS pktable_name, pa.attname AS pkcolumn_name, "
+                        + "fn.nspname AS fktable_schem, fc.relname AS fktable_name, fa.attname AS fkcolumn_name, k.n AS key_seq, "
+                        + rule("con.confupdtype") + " AS update_rule, " + rule("con.confdeltype") + " AS delete_rule, "
+                        + "con.conname AS fk_name, pi.relname AS pk_name, "
+                        + "CASE WHEN con.condeferrable AND con.condeferred THEN 5 WHEN con.condeferrable THEN 6 ELSE 7 END AS deferrability "
+                        + "FROM pg_constraint con "
+                        + "JOIN pg_class fc ON fc.oid = con.conrelid "
+                        + "JOIN pg_namespace fn ON fn.oid = fc.relnamespace "
+                        + "JOIN pg_class pc ON pc.oid = con.confrelid "
+                        + "JOIN pg_namespace pn ON pn.oid = pc.relnamespace "
+                        + "LEFT JOIN pg_class pi ON pi.oid = con.conindid "
+                        + "CROSS JOIN " + KEY_POSITIONS + " "
+                        + "JOIN pg_attribute fa ON fa.attrelid = con.conrelid AND fa.attnum = con.conkey[k.n] "
+                        + "JOIN pg_attribute pa ON pa.attrelid = con.confrelid AND pa.attnum = con.confkey[k.n] "
+                        + "WHERE fn.nspname = ? AND con.contype = 'f' "
+                        + "ORDER BY fc.relname, con.conname, k.n");
+    }
+
+    // 与驱动 DatabaseMetaData.getColumns 返回的 DATA_TYPE 一致，未列出的按 Types.OTHER
+    private static final Map<String, Integer> JDBC_TYPES = new HashMap<>();
+
+    static {
+        putTypes(Types.SMALLINT, "int2", "smallserial");
+        putTypes(Types.INTEGER, "int4", "serial");
+        putTypes(Types.BIGINT, "int8", "bigserial", "oid");
+        putTypes(Types.REAL, "float4");
+        putTypes(Types.DOUBLE, "float8", "money");
+        putTypes(Types.NUMERIC, "numeric");
+        putTypes(Types.BIT, "bool", "bit");
+        putTypes(Types.CHAR, "bpchar", "char");
+        putTypes(Types.VARCHAR, "varchar", "text", "name", "varchar2", "nvarchar2");
+        putTypes(Types.DATE, "date");
+        putTypes(Types.TIME, "time", "timetz");
+        putTypes(Types.TIMESTAMP, "timestamp", "timestamptz");
+        putTypes(Types.BINARY, "bytea");
+        putTypes(Types.BLOB, "blob");
+        putTypes(Types.CLOB, "clob");
+        putTypes(Types.SQLXML, "xml");
+    }
+
+    private KingBaseCatalogMetadata() {
+    }
+
+    private static void putTypes(int jdbcType, String... typeNames) {
+        for (String typeName : typeNames) {
+            JDBC_TYPES.put(typeName, jdbcType);
+        }
+    }
+
+    /**
+     * pg_constraint 的引用动作转成 DatabaseMetaData 的规则值
+     */
+    private static String rule(String column) {
+        return "CASE " + column + " WHEN 'c' THEN 0 WHEN 'r' THEN 1 WHEN 'n' THEN 2 WHEN 'd' THEN 4 ELSE 3 END";
+    }
+
+    /**
+     * 执行一类系统表查询，返回 DatabaseMetaData 形式的行。模式名须已按 KingBaseDatabase.correctObjectName 处理大小写
+     */
+    static List<Map<String, Object>> load(Connection connection, String schemaName, SchemaMetadataCache.Type type) throws SQLException {
+        List<Map<String, Object>> rows = SchemaMetadataCache.query(connection, SQL.get(type), schemaName);
+        if (type == SchemaMetadataCache.Type.COLUMNS) {
+            for (Map<String, Object> row : rows) {
+                toJdbcColumn(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 由 atttypmod 算出 DatabaseMetaData.getColumns 的 DATA_TYPE、COLUMN_SIZE、DECIMAL_DIGITS、NUM_PREC_RADIX
+     */
+    private static void toJdbcColumn(Map<String, Object> row) {
+        String typeName = (String) row.get("TYPE_NAME");
+        Object typmodValue = row.remove("TYPMOD");
+        int typmod = typmodValue instanceof Number ? ((Number) typmodValue).intValue() : -1;
+        // 数组类型以下划线开头
+        int jdbcType = typeName != null && typeName.startsWith("_") ? Types.ARRAY : JDBC_TYPES.getOrDefault(typeName, Types.OTHER);
+        row.put("DATA_TYPE", jdbcType);
+
+        Integer columnSize = null;
+        Integer decimalDigits = null;
+        Integer radix = null;
+        switch (jdbcType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+                // 变长字符的 atttypmod 含 4 字节头，未指定长度时为 -1
+                if (typmod >= 4) {
+                    columnSize = typmod - 4;
+                }
+                break;
+            case Types.NUMERIC:
+                if (typmod >= 4) {
+                    columnSize = ((typmod - 4) >> 16) & 0xffff;
+                    decimalDigits = (typmod - 4) & 0xffff;
+                }
+                radix = 10;
+                break;
+            case Types.SMALLINT:
+                columnSize = 5;
+                decimalDigits = 0;
+                radix = 10;
+                break;
+            case Types.INTEGER:
+                columnSize = 10;
+                decimalDigits = 0;
+                radix = 10;
+                break;
+            case Types.BIGINT:
+                columnSize = 19;
+                decimalDigits = 0;
+                radix = 10;
+                break;
+            case Types.REAL:
+                columnSize = 8;
+                decimalDigits = 8;
+                radix = 10;
+                break;
+            case Types.DOUBLE:
+                columnSize = 17;
+                decimalDigits = 17;
+                radix = 10;
+                break;
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                // 秒的小数位数，未指定时为 6
+                decimalDigits = typmod >= 0 ? typmod : 6;
+                break;
+            case Types.BIT:
+                if ("bit".equals(typeName)) {
+                    columnSize = typmod > 0 ? typmod : 1;
+                }
+                break;
+            default:
+                break;
+        }
+        row.put("COLUMN_SIZE", columnSize);
+        row.put("DECIMAL_DIGITS", decimalDigits);
+        row.put("NUM_PREC_RADIX", radix);
+        row.put("CHAR_OCTET_LENGTH", null);
+    }
+}
@@ -0,0 +1,153 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMConnectionPool;
+import liquibase.database.core.DMDatabase;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.ForeignKey;
+import liquibase.structure.core.Index;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Trigger;
+import liquibase.structure.core.UniqueConstraint;
+import liquibase.structure.core.View;
+import liquibase.util.StringUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 达梦并行快照：模式第一次被快照时，把该模式（以及 parallelSchemas 中配置的其它模式）的各类字典查询
+ * 提交到 {@link DMConnectionPool} 的独立连接上并发执行，各 SnapshotGenerator 再按快照取回结果，
+ * 在主线程里合并进同一个 DatabaseSnapshot。Liquibase 逐个模式快照，且第一个模式开始时拿不到其余模式的列表，
+ * 所以没有列在 parallelSchemas 中的模式要等轮到它时才提交，模式之间不会并行。
+ */
+public final class ParallelSnapshotSupport {
+
+    static final String PROCEDURE_BODIES = "procedureBodies";
+    static final String DM_TRIGGERS = "triggers";
+    static final String VIEW_DEFINITIONS = "viewDefinitions";
+
+    private static final Map<String, Loader> LOADERS = new LinkedHashMap<>();
+    // 快照 -> 已提交的查询，快照被回收后随之清除
+    private static final Map<DatabaseSnapshot, Scheduled> SCHEDULED = new WeakHashMap<>();
+
+    static {
+        // 达梦的 DBA_SOURCE 含完整的 CREATE 语句，不需要前缀
+        LOADERS.put(PROCEDURE_BODIES, new Loader(StoredProcedure.class, (connection, schemaName) -> ProcedureSnapshotGenerator.loadBodies(connection, schemaName, "")));
+        LOADERS.put(DM_TRIGGERS, new Loader(Trigger.class, TriggerSnapshotGenerator::loadDMTriggers));
+        LOADERS.put(VIEW_DEFINITIONS, new Loader(View.class, ViewSnapshotGeneratorDM::loadViewDefinitions));
+        LOADERS.put(SchemaMetadataCache.Type.COLUMNS.name(), dictionaryLoader(Column.class, SchemaMetadataCache.Type.COLUMNS));
+        LOADERS.put(SchemaMetadataCache.Type.INDEXES.name(), dictionaryLoader(Index.class, SchemaMetadataCache.Type.INDEXES));
+        LOADERS.put(SchemaMetadataCache.Type.PRIMARY_KEYS.name(), dictionaryLoader(PrimaryKey.class, SchemaMetadataCache.Type.PRIMARY_KEYS));
+        LOADERS.put(SchemaMetadataCache.Type.UNIQUE_CONSTRAINTS.name(), dictionaryLoader(UniqueConstraint.class, SchemaMetadataCache.Type.UNIQUE_CONSTRAINTS));
+        LOADERS.put(SchemaMetadataCache.Type.FOREIGN_KEYS.name(), dictionaryLoader(ForeignKey.class, SchemaMetadataCache.Type.FOREIGN_KEYS));
+    }
+
+    private ParallelSnapshotSupport() {
+    }
+
+    public static boolean isEnabled(Database database) {
+        return database instanceof DMDatabase && ChineseDbSnapshotConfiguration.PARALLEL.getCurrentValue();
+    }
+
+    /**
+     * 为模式提交快照包含的对象类型的字典查询，同一快照内每个模式只提交一次
+     */
+    static void schedule(DatabaseSnapshot snapshot, Schema schema) throws DatabaseException {
+        Set<String> schemaNames = new LinkedHashSet<>();
+        schemaNames.add(schema.getName());
+        String configured = ChineseDbSnapshotConfiguration.PARALLEL_SCHEMAS.getCurrentValue();
+        if (configured != null) {
+            for (String name : StringUtil.splitAndTrim(configured, ",")) {
+                schemaNames.add(snapshot.getDatabase().correctObjectName(name, Schema.class));
+            }
+        }
+        Scheduled scheduled = getScheduled(snapshot);
+        DMConnectionPool pool = null;
+        for (String schemaName : schemaNames) {
+            // 结果取走后从 futures 中删除，是否提交过另行记录，避免重复查询
+            if (!scheduled.schemaNames.add(schemaName)) {
+                continue;
+            }
+            for (Map.Entry<String, Loader> loader : LOADERS.entrySet()) {
+                if (!snapshot.getSnapshotControl().shouldInclude(loader.getValue().objectType)) {
+                    continue;
+                }
+                if (pool == null) {
+                    pool = ((DMDatabase) snapshot.getDatabase()).getSnapshotConnectionPool();
+                }
+                SchemaLoader<?> schemaLoader = loader.getValue().schemaLoader;
+                scheduled.futures.put(key(schemaName, loader.getKey()), pool.submit(connection -> schemaLoader.load(connection, schemaName)));
+            }
+        }
+    }
+
+    /**
+     * 等待并返回模式的某类字典数据，没有提交过时返回 null。结果只取一次，取走后不再由快照持有
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T take(DatabaseSnapshot snapshot, Schema schema, String type) throws DatabaseException {
+        Future<?> future = getScheduled(snapshot).futures.remove(key(schema.getName(), type));
+        if (future == null) {
+            return null;
+        }
+        try {
+            return (T) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException(e);
+        } catch (ExecutionException e) {
+            throw new DatabaseException("Parallel snapshot of " + type + " in schema " + schema.getName() + " failed", e.getCause());
+        }
+    }
+
+    private static Scheduled getScheduled(DatabaseSnapshot snapshot) {
+        synchronized (SCHEDULED) {
+            return SCHEDULED.computeIfAbsent(snapshot, key -> new Scheduled());
+        }
+    }
+
+    private static Loader dictionaryLoader(Class<? extends DatabaseObject> objectType, SchemaMetadataCache.Type type) {
+        return new Loader(objectType, (connection, schemaName) -> DMDictionaryMetadata.load(connection, schemaName, type));
+    }
+
+    private static String key(String schemaName, String type) {
+        return schemaName + "." + type;
+    }
+
+    interface SchemaLoader<T> {
+        T load(Connection connection, String schemaName) throws SQLException;
+    }
+
+    // 一个快照中已提交的模式和尚未取走的结果
+    private static final class Scheduled {
+        private final Set<String> schemaNames = ConcurrentHashMap.newKeySet();
+        private final ConcurrentMap<String, Future<?>> futures = new ConcurrentHashMap<>();
+    }
+
+    // 查询及其结果所属的对象类型，快照不包含该类型时不提交
+    private static final class Loader {
+        private final Class<? extends DatabaseObject> objectType;
+        private final SchemaLoader<?> schemaLoader;
+
+        private Loader(Class<? extends DatabaseObject> objectType, SchemaLoader<?> schemaLoader) {
+            this.objectType = objectType;
+            this.schemaLoader = schemaLoader;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Schema;
+
+/**
+ * 达梦、人大金仓主键快照：模式被快照时用一次 ALL_CONSTRAINTS / pg_constraint 查询取回全部主键，各表的主键直接从缓存读取
+ */
+public class PrimaryKeySnapshotGeneratorChineseDb extends PrimaryKeySnapshotGenerator {
+
+    @Override
+    public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+        int priority = super.getPriority(objectType, database);
+        if (priority > PRIORITY_NONE && (database instanceof DMDatabase || database instanceof KingBaseDatabase)) {
+            priority += PRIORITY_DATABASE;
+        }
+        return priority;
+    }
+
+    @Override
+    public Class<? extends SnapshotGenerator>[] replaces() {
+        return new Class[]{PrimaryKeySnapshotGenerator.class};
+    }
+
+    @Override
+    public Class<? extends DatabaseObject>[] addsTo() {
+        return SchemaMetadataCache.withSchema(super.addsTo());
+    }
+
+    @Override
+    protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot) throws DatabaseException {
+        if (foundObject instanceof Schema) {
+            if (snapshot.getSnapshotControl().shouldInclude(PrimaryKey.class)) {
+                SchemaMetadataCache.prime(snapshot, (Schema) foundObject, SchemaMetadataCache.Type.PRIMARY_KEYS);
+            }
+            return;
+        }
+        super.addTo(foundObject, snapshot);
+    }
+}
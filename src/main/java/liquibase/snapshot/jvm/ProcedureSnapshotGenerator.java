@@ -3,21 +3,25 @@ package liquibase.snapshot.jvm;
 import liquibase.Scope;
 import liquibase.database.Database;
 import liquibase.database.core.*;
-import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
-import liquibase.executor.ExecutorService;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
 import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.snapshot.InvalidExampleException;
-import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Schema;
 import liquibase.structure.core.StoredProcedure;
+import liquibase.util.StringUtil;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,35 +37,42 @@ public class ProcedureSnapshotGenerator extends JdbcSnapshotGenerator {
 
     @Override
     protected DatabaseObject snapshotObject(DatabaseObject example, DatabaseSnapshot snapshot) throws DatabaseException, InvalidExampleException {
-        if (((StoredProcedure) example).getBody() != null) {
+        if (SourceBody.isLoaded(example)) {
             return example;
         }
-        // 获取存储过程主体
+        // 获取存储过程主体，未被批量预取时逐个查询
         StoredProcedure storedProcedure = (StoredProcedure) example;
         Database database = snapshot.getDatabase();
         Schema schema = example.getSchema();
-        Connection connection = null;
-        if (database.getConnection() instanceof JdbcConnection) {
-            connection = ((JdbcConnection) database.getConnection()).getWrappedConnection();
+        if (ParallelSnapshotSupport.isEnabled(database)) {
+            // 结果只能取一次，取到后设置到模式中全部存储过程上，其余存储过程在开头直接返回
+            Map<String, SourceBody> bodies = ParallelSnapshotSupport.take(snapshot, schema, ParallelSnapshotSupport.PROCEDURE_BODIES);
+            if (bodies != null) {
+                for (StoredProcedure procedure : schema.getDatabaseObjects(StoredProcedure.class)) {
+                    SourceBody body = bodies.get(procedure.getName());
+                    if (body != null) {
+                        body.applyTo(procedure);
+                    }
+                }
+                if (SourceBody.isLoaded(storedProcedure)) {
+                    return storedProcedure;
+                }
+            }
         }
+        Connection connection = getConnection(database);
         if (connection != null) {
-            try {
-                PreparedStatement preparedStatement = connection.prepareStatement(getBodySql(schema, database, storedProcedure));
-                ResultSet resultSet = preparedStatement.executeQuery();
-                if (resultSet != null) {
-                    if (database instanceof MySQLDatabase) {
-                        if ("PROCEDURE".equals(storedProcedure.getAttribute("PROCEDURE_TYPE", String.class).toUpperCase())) {
-                            storedProcedure.setBody(resultSet.getString("Create Procedure"));
-                        } else {
-                            storedProcedure.setBody(resultSet.getString("Create Function"));
-                        }
-                    } else if (database instanceof OracleDatabase) {
-                        storedProcedure.setBody("CREATE OR REPLACE " + getSQL(resultSet));
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(getBodySql(schema, database, storedProcedure))) {
+                if (database instanceof MySQLDatabase) {
+                    if ("PROCEDURE".equals(storedProcedure.getAttribute("PROCEDURE_TYPE", String.class).toUpperCase())) {
+                        storedProcedure.setBody(resultSet.getString("Create Procedure"));
                     } else {
-                        storedProcedure.setBody(getSQL(resultSet));
+                        storedProcedure.setBody(resultSet.getString("Create Function"));
                     }
-                    return storedProcedure;
+                } else {
+                    getSourceBody(resultSet, getBodyPrefix(database)).applyTo(storedProcedure);
                 }
+                return storedProcedure;
             } catch (SQLException e) {
                 e.printStackTrace();
                 return null;
@@ -79,27 +90,220 @@ public class ProcedureSnapshotGenerator extends JdbcSnapshotGenerator {
         if (foundObject instanceof Schema) {
             Schema schema = (Schema) foundObject;
             Database database = snapshot.getDatabase();
-            List<Map<String, ?>> procedures = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).queryForList(new RawSqlStatement(getProcedureSql(schema, database)));
+            Connection connection = getConnection(database);
+            if (connection == null) {
+                return;
+            }
+            List<StoredProcedure> found = new ArrayList<>();
+            Map<String, Long> lastDdlTimes = new HashMap<>();
+            boolean hasLastDdlTime = database instanceof OracleDatabase || database instanceof DMDatabase;
+            try {
+                // 逐行建立存储过程对象，不经过 queryForList 的中间 Map
+                StreamingQuery.forEachRow(connection, getProcedureSql(schema, database), resultSet -> {
+                    StoredProcedure storedProcedure = mapToProcedure(resultSet, schema, database);
+                    schema.addDatabaseObject(storedProcedure);
+                    found.add(storedProcedure);
+                    if (hasLastDdlTime) {
+                        lastDdlTimes.put(storedProcedure.getName(), SnapshotBodyCache.toMillis(resultSet.getTimestamp("LAST_DDL_TIME")));
+                    }
+                });
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+            if (hasLastDdlTime) {
+                orderByDependencies(connection, schema, found);
+            }
+            if (DMMetadataDdl.isEnabled(database)) {
+                // 达梦 DBMS_METADATA：一次查询取回整个模式的 DDL
+                loadMetadataDdl(schema, connection, found);
+            } else if (SnapshotBodyCache.isEnabled(database)) {
+                // 增量模式：只查询 LAST_DDL_TIME 变化的存储过程
+                loadChangedBodies(schema, database, found, lastDdlTimes);
+            } else if (ParallelSnapshotSupport.isEnabled(database)) {
+                // 并行模式：后台连接加载源码，snapshotObject 时再取结果
+                ParallelSnapshotSupport.schedule(snapshot, schema);
+            } else if (shouldPrefetchBodies(database, found.size())) {
+                prefetchBodies(schema, database, found);
+            }
+        }
+    }
+
+    /**
+     * 按 ALL_DEPENDENCIES 设置生成变更的顺序，使被依赖的存储过程先创建。
+     * 查询失败时只记录警告，变更按名称顺序生成。
+     */
+    private void orderByDependencies(Connection connection, Schema schema, List<StoredProcedure> procedures) {
+        try {
+            DependencyOrder.apply(connection, schema.getName(), procedures);
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not read dependencies for schema " + schema.getName() + ", procedures will be ordered by name: " + e.getMessage());
+        }
+    }
+
+    private boolean shouldPrefetchBodies(Database database, int count) {
+        if (!(database instanceof OracleDatabase || database instanceof DMDatabase)) {
+            return false;
+        }
+        return ChineseDbSnapshotConfiguration.PREFETCH_BODIES.getCurrentValue()
+                && count >= ChineseDbSnapshotConfiguration.PREFETCH_THRESHOLD.getCurrentValue();
+    }
+
+    /**
+     * 一次查询整个模式的 DBA_SOURCE，为所有存储过程填充 body。
+     * 预取失败时只记录警告，snapshotObject 会退回到逐个查询。
+     */
+    private void prefetchBodies(Schema schema, Database database, List<StoredProcedure> procedures) throws DatabaseException {
+        Connection connection = getConnection(database);
+        if (connection == null) {
+            return;
+        }
+        try {
+            fillBodies(procedures, loadBodies(connection, schema.getName(), getBodyPrefix(database)));
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not prefetch procedure bodies for schema " + schema.getName() + ", falling back to per-object lookup: " + e.getMessage());
+        }
+    }
+
+    /**
+     * LAST_DDL_TIME 与缓存一致的存储过程直接使用缓存的源码，其余的按名称批量查询后写回缓存。
+     * 查询失败时只记录警告，snapshotObject 会退回到逐个查询。
+     */
+    private void loadChangedBodies(Schema schema, Database database, List<StoredProcedure> procedures, Map<String, Long> lastDdlTimes) throws DatabaseException {
+        try (SnapshotBodyCache cache = SnapshotBodyCache.open(database, schema.getName())) {
+            cache.retain(SnapshotBodyCache.PROCEDURE, lastDdlTimes.keySet());
+            List<String> changed = new ArrayList<>();
+            for (StoredProcedure procedure : procedures) {
+                SourceBody body = cache.get(SnapshotBodyCache.PROCEDURE, procedure.getName(), lastDdlTimes.get(procedure.getName()));
+                if (body != null) {
+                    body.applyTo(procedure);
+                } else {
+                    changed.add(procedure.getName());
+                }
+            }
+            Scope.getCurrentScope().getLog(getClass()).fine("Procedure bodies in schema " + schema.getName() + ": " + (procedures.size() - changed.size()) + " from cache, " + changed.size() + " changed");
+            if (changed.isEmpty()) {
+                return;
+            }
+            Map<String, SourceBody> bodies = loadBodies(getConnection(database), schema.getName(), getBodyPrefix(database), changed);
+            fillBodies(procedures, bodies);
+            for (String name : changed) {
+                if (bodies.containsKey(name)) {
+                    cache.put(SnapshotBodyCache.PROCEDURE, name, lastDdlTimes.get(name), bodies.get(name));
+                }
+            }
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not load changed procedure bodies for schema " + schema.getName() + ", falling back to per-object lookup: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 用 DBMS_METADATA.GET_DDL 填充整个模式的存储过程源码。
+     * 查询失败（如缺少 DBMS_METADATA 权限）时只记录警告，snapshotObject 会退回到逐个查询 DBA_SOURCE。
+     */
+    private void loadMetadataDdl(Schema schema, Connection connection, List<StoredProcedure> procedures) {
+        Map<String, SourceBody> bodies = new HashMap<>();
+        try {
+            StreamingQuery.forEachRow(connection, DMMetadataDdl.getProcedureSql(), schema.getName(), resultSet ->
+                    bodies.put(resultSet.getString("NAME"), DMMetadataDdl.read(resultSet, false)));
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not read procedure DDL from DBMS_METADATA for schema " + schema.getName() + ", falling back to per-object lookup: " + e.getMessage());
+            return;
+        }
+        fillBodies(procedures, bodies);
+    }
+
+    private void fillBodies(List<StoredProcedure> procedures, Map<String, SourceBody> bodies) {
+        for (StoredProcedure procedure : procedures) {
+            SourceBody body = bodies.get(procedure.getName());
+            if (body != null && !SourceBody.isLoaded(procedure)) {
+                body.applyTo(procedure);
+            }
+        }
+    }
 
-            if (procedures != null) {
-                for (Map<String, ?> procedure : procedures) {
-                    schema.addDatabaseObject(mapToProcedure(procedure, (Schema) foundObject, database));
+    /**
+     * 按 NAME、TYPE、LINE 排序流式读取模式下全部存储过程源码，返回 名称 -> 源码。
+     * TOTAL_LENGTH 用于一次性分配每个源码的缓冲区；不依赖快照状态，可以在并行快照的独立连接上执行。
+     */
+    static Map<String, SourceBody> loadBodies(Connection connection, String schemaName, String prefix) throws SQLException {
+        Map<String, SourceBody> bodies = new HashMap<>();
+        loadBodies(connection, getBulkBodySql(0), schemaName, Collections.<String>emptyList(), prefix, bodies);
+        return bodies;
+    }
+
+    /**
+     * 只读取指定名称的存储过程源码，名称按 IN 列表上限分批
+     */
+    static Map<String, SourceBody> loadBodies(Connection connection, String schemaName, String prefix, Collection<String> names) throws SQLException {
+        Map<String, SourceBody> bodies = new HashMap<>();
+        for (List<String> chunk : SnapshotBodyCache.partition(names)) {
+            loadBodies(connection, getBulkBodySql(chunk.size()), schemaName, chunk, prefix, bodies);
+        }
+        return bodies;
+    }
+
+    private static void loadBodies(Connection connection, String sql, String schemaName, List<String> names, String prefix, Map<String, SourceBody> bodies) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, schemaName);
+            for (int i = 0; i < names.size(); i++) {
+                preparedStatement.setString(i + 2, names.get(i));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                String currentName = null;
+                String currentKey = null;
+                SourceBodyBuilder source = null;
+                while (resultSet.next()) {
+                    String name = resultSet.getString("NAME");
+                    String key = name + "." + resultSet.getString("TYPE");
+                    if (!key.equals(currentKey)) {
+                        if (currentName != null) {
+                            bodies.put(currentName, source.build());
+                        }
+                        currentKey = key;
+                        currentName = name.trim();
+                        source = SourceBodyBuilder.forCurrentMode(prefix.length() + resultSet.getLong("TOTAL_LENGTH")).append(prefix);
+                    }
+                    source.append(resultSet.getString("TEXT"));
+                }
+                if (currentName != null) {
+                    bodies.put(currentName, source.build());
                 }
             }
         }
     }
 
-    private DatabaseObject mapToProcedure(Map<String, ?> procedure, Schema schema, Database database) {
-        String name = cleanNameFromDatabase((String) procedure.get("PROCEDURE_NAME"), database);
+    // Oracle 的 DBA_SOURCE 不含 CREATE 关键字
+    private String getBodyPrefix(Database database) {
+        if (database instanceof OracleDatabase) {
+            return "CREATE OR REPLACE ";
+        }
+        return "";
+    }
+
+    // 字典查询的连接，配置了只读副本时不使用主连接
+    private Connection getConnection(Database database) throws DatabaseException {
+        return CatalogConnection.of(database);
+    }
+
+    private StoredProcedure mapToProcedure(ResultSet procedure, Schema schema, Database database) throws SQLException {
+        String name = cleanNameFromDatabase(procedure.getString("PROCEDURE_NAME"), database);
         StoredProcedure storedProcedure = new StoredProcedure();
         storedProcedure.setName(name);
         storedProcedure.setSchema(schema);
         storedProcedure.setAttribute("liquibase-complete", true);
         if (database instanceof MySQLDatabase) {
-            storedProcedure.setAttribute("PROCEDURE_TYPE", procedure.get("PROCEDURE_TYPE"));
+            storedProcedure.setAttribute("PROCEDURE_TYPE", procedure.getString("PROCEDURE_TYPE"));
         }
-        if (database instanceof PostgresDatabase) {
-            storedProcedure.setAttribute("pid", procedure.get("pid"));
+        if (database instanceof PostgresDatabase || database instanceof KingBaseDatabase) {
+            storedProcedure.setAttribute("pid", procedure.getObject("pid"));
+        }
+        if (database instanceof KingBaseDatabase) {
+            // 定义随列表一起取回，snapshotObject 不再逐个查询
+            String definition = procedure.getString("PROCEDURE_BODY");
+            if (definition != null) {
+                SourceBodyBuilder.forCurrentMode(definition.length()).append(definition).build().applyTo(storedProcedure);
+            }
         }
         return storedProcedure;
     }
@@ -107,16 +311,18 @@ public class ProcedureSnapshotGenerator extends JdbcSnapshotGenerator {
     // 此处只查询存储过程名称
     private String getProcedureSql(Schema schema, Database database) {
         if (database instanceof MySQLDatabase) {
-            return "SELECT\n" + "\t`SPECIFIC_NAME` AS PROCEDURE_NAME,\n" + "\t`ROUTINE_SCHEMA` AS SCHEMA_NAME,\n" + "\t`ROUTINE_TYPE` AS PROCEDURE_TYPE\n" + "FROM\n" + "\tINFORMATION_SCHEMA.ROUTINES\n" + "WHERE\n" + "\tROUTINE_SCHEMA = '" + schema.getName() + "'\n" + "\tAND ROUTINE_TYPE IN ('PROCEDURE',\n" + "\t'FUNCTION')\n" + "ORDER BY\n" + "\tROUTINE_NAME";
+            return "SELECT\n" + "\t`SPECIFIC_NAME` AS PROCEDURE_NAME,\n" + "\t`ROUTINE_SCHEMA` AS SCHEMA_NAME,\n" + "\t`ROUTINE_TYPE` AS PROCEDURE_TYPE\n" + "FROM\n" + "\tINFORMATION_SCHEMA.ROUTINES\n" + "WHERE\n" + "\tROUTINE_SCHEMA = '" + schema.getName() + "'\n" + "\tAND ROUTINE_TYPE IN ('PROCEDURE',\n" + "\t'FUNCTION')\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "ROUTINE_NAME") + "ORDER BY\n" + "\tROUTINE_NAME";
         } else if (database instanceof OracleDatabase || database instanceof DMDatabase) {
-            return "SELECT\n" + "    OBJECT_NAME AS PROCEDURE_NAME,\n" + "\tOWNER AS SCHEMA_NAME\n" + "FROM\n" + "\tALL_OBJECTS\n" + "WHERE\n" + "\tOBJECT_TYPE IN ('PROCEDURE','FUNCTION')\n" + "\tAND OWNER = '" + schema.getName() + "'\n" + "ORDER BY\n" + "\tOBJECT_NAME";
+            return "SELECT\n" + "    OBJECT_NAME AS PROCEDURE_NAME,\n" + "\tOWNER AS SCHEMA_NAME,\n" + "\tLAST_DDL_TIME\n" + "FROM\n" + "\tALL_OBJECTS\n" + "WHERE\n" + "\tOBJECT_TYPE IN ('PROCEDURE','FUNCTION')\n" + "\tAND OWNER = '" + schema.getName() + "'\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "OBJECT_NAME")
+                    + (database instanceof DMDatabase ? DictionaryNameFilter.dmSystemPredicates("OBJECT_NAME", "OWNER") : "") + "ORDER BY\n" + "\tOBJECT_NAME";
         } else if (database instanceof MSSQLDatabase) {
             return "SELECT p.name as PROCEDURE_NAME\n" + "FROM " + schema.getCatalogName() + ".sys.all_objects p\n" + // mssql 中getCatalogName 获取的是数据库名称 getName获取的是DBO
-                    "LEFT OUTER JOIN " + schema.getCatalogName() + ".sys.extended_properties ep ON ep.class=1 AND ep.major_id=p.object_id AND ep.minor_id=0 AND ep.name='MS_Description'\n" + "WHERE p.type IN ('P','PC','X','TF','FN','IF') AND p.schema_id=1\n" + "ORDER BY p.name";
+                    "LEFT OUTER JOIN " + schema.getCatalogName() + ".sys.extended_properties ep ON ep.class=1 AND ep.major_id=p.object_id AND ep.minor_id=0 AND ep.name='MS_Description'\n" + "WHERE p.type IN ('P','PC','X','TF','FN','IF') AND p.schema_id=1\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "p.name") + "ORDER BY p.name";
         } else if (database instanceof PostgresDatabase) {
-            return "select p.oid as pid,p.proname as procedure_name\n" + "from pg_catalog.pg_proc p ,pg_catalog.pg_namespace d\n" + "where p.pronamespace=d.oid and d.nspname ='" + schema.getName() + "'\n" + "order by p.proname";
+            return "select p.oid as pid,p.proname as procedure_name\n" + "from pg_catalog.pg_proc p ,pg_catalog.pg_namespace d\n" + "where p.pronamespace=d.oid and d.nspname ='" + schema.getName() + "'\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "p.proname") + "order by p.proname";
         } else if (database instanceof KingBaseDatabase) {
-            return "SELECT\n" + "\tROUTINE_NAME AS PROCEDURE_NAME,\n" + "\tROUTINE_TYPE AS PROCEDURE_TYPE,\n" + "\tROUTINE_SCHEMA AS SCHEMA_NAME\n" + "FROM\n" + "\tINFORMATION_SCHEMA.ROUTINES\n" + "WHERE\n" + "\tROUTINE_SCHEMA = '" + schema.getName() + "'\n" + "\tAND ROUTINE_TYPE IN ('PROCEDURE','FUNCTION')\n" + "\tAND ROUTINE_CATALOG ='" + schema.getCatalogName() + "'\n" + "ORDER BY\n" + "\tROUTINE_NAME";
+            // pg_proc 直接带出 pg_get_functiondef，系统表不加 pg_catalog 前缀，兼容 sys_catalog 下的同名视图
+            return "SELECT\n" + "\tp.oid AS pid,\n" + "\tp.proname AS PROCEDURE_NAME,\n" + "\tCASE p.prokind WHEN 'p' THEN 'PROCEDURE' ELSE 'FUNCTION' END AS PROCEDURE_TYPE,\n" + "\tn.nspname AS SCHEMA_NAME,\n" + "\tpg_get_functiondef(p.oid) AS PROCEDURE_BODY\n" + "FROM\n" + "\tpg_proc p\n" + "\tJOIN pg_namespace n ON n.oid = p.pronamespace\n" + "WHERE\n" + "\tn.nspname = '" + database.correctObjectName(schema.getName(), Schema.class) + "'\n" + "\tAND p.prokind IN ('f','p')\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "p.proname") + "ORDER BY\n" + "\tp.proname";
         } else {
             throw new UnexpectedLiquibaseException("Don't know how to query for procedure on " + database);
         }
@@ -127,25 +333,58 @@ public class ProcedureSnapshotGenerator extends JdbcSnapshotGenerator {
             String type = storedProcedure.getAttribute("PROCEDURE_TYPE", String.class).toUpperCase();
             return "SHOW CREATE " + type + " " + schema.getName() + ".`" + storedProcedure.getName() + "`";
         } else if (database instanceof OracleDatabase || database instanceof DMDatabase) {
-            return "SELECT TEXT FROM DBA_SOURCE WHERE  OWNER='" + schema.getName() + "' AND NAME='" + storedProcedure.getName() + "' ORDER BY LINE";
+            return "SELECT TEXT, SUM(LENGTH(TEXT)) OVER () AS TOTAL_LENGTH FROM DBA_SOURCE WHERE  OWNER='" + schema.getName() + "' AND NAME='" + storedProcedure.getName() + "' ORDER BY LINE";
         } else if (database instanceof MSSQLDatabase) {
             return schema.getCatalogName() + ".sys.sp_helptext 'dbo." + storedProcedure.getName() + "'";
-        } else if (database instanceof PostgresDatabase) {
-            return "SELECT pg_get_functiondef(" + storedProcedure.getAttribute("pid", Integer.class) + ")";
+        } else if (database instanceof PostgresDatabase || database instanceof KingBaseDatabase) {
+            return "SELECT pg_get_functiondef(" + storedProcedure.getAttribute("pid", Object.class) + ")";
         } else {
             throw new UnexpectedLiquibaseException("Don't know how to query for procedure on " + database);
         }
     }
 
-    public String getSQL(ResultSet resultSet) throws SQLException { // 从resultset中获取SQL
-        StringBuilder source = null;
+    // 整个模式（nameCount 为 0，按 includeObjects / excludeObjects 过滤）或指定名称的存储过程源码，OWNER 和名称通过参数绑定
+    private static String getBulkBodySql(int nameCount) {
+        String nameFilter = nameCount == 0 ? "\n" + DictionaryNameFilter.predicates(StoredProcedure.class, "NAME") : " AND NAME IN (" + StringUtil.join(Collections.nCopies(nameCount, "?"), ",") + ")";
+        return "SELECT NAME, TYPE, TEXT, SUM(LENGTH(TEXT)) OVER (PARTITION BY NAME, TYPE) AS TOTAL_LENGTH FROM DBA_SOURCE WHERE OWNER = ? AND TYPE IN ('PROCEDURE','FUNCTION')" + nameFilter + " ORDER BY NAME, TYPE, LINE";
+    }
+
+    /**
+     * 从 resultset 中拼接源码，第一列为源码行，第二列为可选的 TOTAL_LENGTH
+     */
+    public SourceBody getSourceBody(ResultSet resultSet, String prefix) throws SQLException {
+        return getSourceBody(resultSet, prefix, ChineseDbSnapshotConfiguration.BODY_MODE.getCurrentValue() == ChineseDbSnapshotConfiguration.BodyMode.HASH);
+    }
+
+    private SourceBody getSourceBody(ResultSet resultSet, String prefix, boolean hashOnly) throws SQLException {
+        SourceBodyBuilder source = null;
         while (resultSet.next()) {
-            final String line = resultSet.getString(1);
             if (source == null) {
-                source = new StringBuilder(200);
+                source = new SourceBodyBuilder(hashOnly, prefix.length() + SourceBodyBuilder.expectedLength(resultSet)).append(prefix);
             }
-            source.append(line);
+            source.appendColumn(resultSet, 1);
+        }
+        return source == null ? new SourceBodyBuilder(hashOnly, 0).build() : source.build();
+    }
+
+    /**
+     * 读取存储过程全文，不受 bodyMode 影响。hash 模式的快照只有摘要，需要生成变更时才调用
+     */
+    public String readBodyText(StoredProcedure storedProcedure, Database database) throws DatabaseException {
+        String text = SourceBody.readText(storedProcedure);
+        if (text != null) {
+            return text;
+        }
+        Connection connection = getConnection(database);
+        // MySQL 的源码在快照时总是完整保存，不会走到这里
+        if (connection == null || database instanceof MySQLDatabase) {
+            return null;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(getBodySql(storedProcedure.getSchema(), database, storedProcedure))) {
+            return getSourceBody(resultSet, getBodyPrefix(database), false).getText();
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
         }
-        return source.toString();
     }
 }
@@ -0,0 +1,142 @@
+package liquibase.snapshot.jvm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * 达梦模式指纹：用快照相同的整模式字典查询（DMDictionaryMetadata、DBA_SOURCE、ALL_TRIGGERS、ALL_VIEWS）
+ * 为每类对象算一个 SHA-256，再合成整个模式的摘要。多个实例的指纹与基线一致时无需完整快照和比较。
+ * <p>
+ * 行按内容排序后计算，与查询顺序无关；目录名、模式名不参与计算，INDEX123、CONS456 这类系统生成的名称
+ * 视为相同；源码按 bodyMode 的规范化规则计算摘要，与 hash 模式快照的 bodyDigest 一致。
+ */
+public final class SchemaFingerprint {
+
+    public static final String PROCEDURES = "PROCEDURES";
+    public static final String TRIGGERS = "TRIGGERS";
+    public static final String VIEWS = "VIEWS";
+
+    // 达梦为未命名的索引、约束生成的名称，各实例不同
+    private static final Pattern GENERATED_NAME = Pattern.compile("^(INDEX|CONS)\\d+$");
+
+    private final String schemaName;
+    private final Map<String, String> digests;
+    private final String digest;
+
+    SchemaFingerprint(String schemaName, Map<String, String> digests) {
+        this.schemaName = schemaName;
+        this.digests = Collections.unmodifiableMap(new LinkedHashMap<>(digests));
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            lines.add(entry.getKey() + "=" + entry.getValue());
+        }
+        this.digest = digest(lines);
+    }
+
+    /**
+     * 在一个连接上计算模式指纹，每类对象一条查询
+     */
+    public static SchemaFingerprint compute(Connection connection, String schemaName) throws SQLException {
+        Map<String, String> digests = new LinkedHashMap<>();
+        for (SchemaMetadataCache.Type type : SchemaMetadataCache.Type.values()) {
+            List<String> lines = new ArrayList<>();
+            for (Map<String, Object> row : DMDictionaryMetadata.load(connection, schemaName, type)) {
+                lines.add(toLine(row));
+            }
+            digests.put(type.name(), digest(lines));
+        }
+
+        List<String> procedures = new ArrayList<>();
+        for (Map.Entry<String, SourceBody> entry : ProcedureSnapshotGenerator.loadBodies(connection, schemaName, "").entrySet()) {
+            procedures.add(entry.getKey() + "=" + bodyDigest(entry.getValue()));
+        }
+        digests.put(PROCEDURES, digest(procedures));
+
+        List<String> triggers = new ArrayList<>();
+        for (TriggerSnapshotGenerator.TriggerSource source : TriggerSnapshotGenerator.loadDMTriggers(connection, schemaName)) {
+            triggers.add(source.getName() + "|" + source.getTableName() + "=" + bodyDigest(source.buildBody()));
+        }
+        digests.put(TRIGGERS, digest(triggers));
+
+        List<String> views = new ArrayList<>();
+        for (Map.Entry<String, ViewSnapshotGeneratorDM.ViewSource> entry : ViewSnapshotGeneratorDM.loadViewDefinitions(connection, schemaName).entrySet()) {
+            views.add(entry.getKey() + "=" + SourceBodyNormalizer.digest(entry.getValue().getDefinition()));
+        }
+        digests.put(VIEWS, digest(views));
+        return new SchemaFingerprint(schemaName, digests);
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    /**
+     * 整个模式的摘要
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * 对象类别 -> 该类对象的摘要，按计算顺序
+     */
+    public Map<String, String> getCategoryDigests() {
+        return digests;
+    }
+
+    /**
+     * 与另一指纹摘要不同的对象类别
+     */
+    public List<String> getDifferingCategories(SchemaFingerprint other) {
+        List<String> differing = new ArrayList<>();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.digests.get(entry.getKey()))) {
+                differing.add(entry.getKey());
+            }
+        }
+        return differing;
+    }
+
+    // 按列名排序，忽略目录和模式列
+    private static String toLine(Map<String, Object> row) {
+        StringBuilder line = new StringBuilder();
+        for (Map.Entry<String, Object> entry : new TreeMap<>(row).entrySet()) {
+            String key = entry.getKey();
+            if (key.endsWith("_CAT") || key.endsWith("_SCHEM")) {
+                continue;
+            }
+            String value = entry.getValue() == null ? "" : entry.getValue().toString();
+            if (key.endsWith("_NAME") && GENERATED_NAME.matcher(value).matches()) {
+                value = "#";
+            }
+            line.append(key).append('=').append(value).append('\u0001');
+        }
+        return line.toString();
+    }
+
+    // 完整模式下由全文计算，hash 模式下直接使用已算好的摘要
+    private static String bodyDigest(SourceBody body) {
+        return body.getText() != null ? SourceBodyNormalizer.digest(body.getText()) : body.getDigest();
+    }
+
+    private static String digest(List<String> lines) {
+        List<String> sorted = new ArrayList<>(lines);
+        Collections.sort(sorted);
+        MessageDigest digest = SourceBodyBuilder.newDigest();
+        for (String line : sorted) {
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return SourceBodyBuilder.toHex(digest.digest());
+    }
+}
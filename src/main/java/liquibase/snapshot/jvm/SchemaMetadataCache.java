@@ -0,0 +1,244 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.AbstractJdbcDatabase;
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.CachedRow;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.ResultSetCache;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 整个模式的列、索引、主键、唯一约束、外键元数据各用一条字典查询取回（达梦见 {@link DMDictionaryMetadata}，
+ * 人大金仓见 {@link KingBaseCatalogMetadata}），结果整理成 JDBC DatabaseMetaData 的列名后预先放进快照的 ResultSetCache。
+ * 核心 SnapshotGenerator 之后按表读取时直接命中缓存，不再逐表调用驱动的 DatabaseMetaData。
+ */
+final class SchemaMetadataCache {
+
+    enum Type {
+        COLUMNS("getColumns", "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME"),
+        INDEXES("getIndexInfo", "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "INDEX_NAME"),
+        PRIMARY_KEYS("getPrimaryKeys", "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME"),
+        // 核心按调用时的模式而不是行里的模式建唯一约束的缓存键
+        UNIQUE_CONSTRAINTS("getUniqueConstraints", null, null, "TABLE_NAME"),
+        FOREIGN_KEYS("getImportedKeys", "FKTABLE_CAT", "FKTABLE_SCHEM", "FKTABLE_NAME", "FK_NAME");
+
+        private final String resultSetCacheName;
+        // 与 JdbcDatabaseSnapshot.CachingDatabaseMetaData 相同的缓存键：目录、模式、其余键列
+        private final String catalogColumn;
+        private final String schemaColumn;
+        private final String[] keyColumns;
+
+        Type(String resultSetCacheName, String catalogColumn, String schemaColumn, String... keyColumns) {
+            this.resultSetCacheName = resultSetCacheName;
+            this.catalogColumn = catalogColumn;
+            this.schemaColumn = schemaColumn;
+            this.keyColumns = keyColumns;
+        }
+    }
+
+    // 快照 -> 模式名 -> 约束名 -> 唯一约束列，快照被回收后随之清除
+    private static final Map<DatabaseSnapshot, Map<String, Map<String, List<Map<String, ?>>>>> UNIQUE_CONSTRAINT_COLUMNS = new WeakHashMap<>();
+
+    private SchemaMetadataCache() {
+    }
+
+    static boolean isEnabled(Database database) {
+        return (database instanceof DMDatabase || database instanceof KingBaseDatabase) && database.getConnection() instanceof JdbcConnection;
+    }
+
+    /**
+     * 在 addsTo 中加入 Schema，模式被快照时先批量读取字典
+     */
+    static Class<? extends DatabaseObject>[] withSchema(Class<? extends DatabaseObject>[] addsTo) {
+        Class<? extends DatabaseObject>[] types = Arrays.copyOf(addsTo, addsTo.length + 1);
+        types[addsTo.length] = Schema.class;
+        return types;
+    }
+
+    /**
+     * 读取整个模式的一类元数据并放进快照的 ResultSetCache。查询失败时只记录警告，核心仍按表调用 DatabaseMetaData
+     */
+    static void prime(DatabaseSnapshot snapshot, Schema schema, Type type) {
+        Database database = snapshot.getDatabase();
+        if (!isEnabled(database)) {
+            return;
+        }
+        List<Map<String, Object>> rows;
+        try {
+            if (database instanceof KingBaseDatabase) {
+                rows = KingBaseCatalogMetadata.load(CatalogConnection.of(database),
+                        database.correctObjectName(schema.getName(), Schema.class), type);
+            } else if (ParallelSnapshotSupport.isEnabled(database)) {
+                ParallelSnapshotSupport.schedule(snapshot, schema);
+                rows = ParallelSnapshotSupport.take(snapshot, schema, type.name());
+            } else {
+                rows = DMDictionaryMetadata.load(CatalogConnection.of(database), schema.getName(), type);
+            }
+        } catch (DatabaseException | SQLException e) {
+            Scope.getCurrentScope().getLog(SchemaMetadataCache.class).warning("Could not read " + type.name().toLowerCase(Locale.ROOT)
+                    + " of schema " + schema.getName() + " from the data dictionary, falling back to JDBC metadata: " + e.getMessage());
+            return;
+        }
+        if (rows == null) {
+            return;
+        }
+
+        // 与核心调用 CachingDatabaseMetaData 时传入的目录、模式一致，缓存键才能命中
+        String catalogName;
+        String schemaName;
+        if (type == Type.UNIQUE_CONSTRAINTS) {
+            catalogName = schema.getCatalogName();
+            schemaName = schema.getName();
+            Map<String, List<Map<String, ?>>> columns = new HashMap<>();
+            for (Map<String, Object> row : rows) {
+                columns.computeIfAbsent((String) row.get("CONSTRAINT_NAME"), name -> new ArrayList<>()).add(row);
+            }
+            synchronized (UNIQUE_CONSTRAINT_COLUMNS) {
+                UNIQUE_CONSTRAINT_COLUMNS.computeIfAbsent(snapshot, key -> new HashMap<>()).put(schema.getName(), columns);
+            }
+        } else {
+            catalogName = ((AbstractJdbcDatabase) database).getJdbcCatalogName(schema);
+            schemaName = ((AbstractJdbcDatabase) database).getJdbcSchemaName(schema);
+        }
+        List<CachedRow> cachedRows = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            cachedRows.add(new CachedRow(row));
+        }
+        try {
+            snapshot.getResultSetCache(type.resultSetCacheName).get(new PrimingExtractor(database, type, catalogName, schemaName, cachedRows));
+        } catch (DatabaseException e) {
+            Scope.getCurrentScope().getLog(SchemaMetadataCache.class).warning("Could not cache " + type.name().toLowerCase(Locale.ROOT)
+                    + " of schema " + schema.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 预先读取的唯一约束列，模式未批量读取时返回 null
+     */
+    static List<Map<String, ?>> getUniqueConstraintColumns(DatabaseSnapshot snapshot, Schema schema, String constraintName) {
+        if (schema == null) {
+            return null;
+        }
+        Map<String, List<Map<String, ?>>> columns;
+        synchronized (UNIQUE_CONSTRAINT_COLUMNS) {
+            Map<String, Map<String, List<Map<String, ?>>>> schemas = UNIQUE_CONSTRAINT_COLUMNS.get(snapshot);
+            columns = schemas == null ? null : schemas.get(schema.getName());
+        }
+        if (columns == null) {
+            return null;
+        }
+        List<Map<String, ?>> rows = columns.get(constraintName);
+        return rows == null ? new ArrayList<>() : rows;
+    }
+
+    /**
+     * 以模式名为唯一参数执行字典查询，返回以大写列名为键的行。字符串值去掉首尾空白，与 ResultSetCache 的处理一致
+     */
+    static List<Map<String, Object>> query(Connection connection, String sql, String schemaName) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, schemaName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] labels = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    labels[i] = metaData.getColumnLabel(i + 1).toUpperCase(Locale.ROOT);
+                }
+                while (resultSet.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 0; i < columnCount; i++) {
+                        Object value = resultSet.getObject(i + 1);
+                        row.put(labels[i], value instanceof String ? ((String) value).trim() : value);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 以批量查询的方式把字典数据交给 ResultSetCache，按核心相同的键分组
+     */
+    private static final class PrimingExtractor extends ResultSetCache.ResultSetExtractor {
+
+        private final Database database;
+        private final Type type;
+        private final String catalogName;
+        private final String schemaName;
+        private final List<CachedRow> rows;
+
+        private PrimingExtractor(Database database, Type type, String catalogName, String schemaName, List<CachedRow> rows) {
+            super(database);
+            this.database = database;
+            this.type = type;
+            this.catalogName = catalogName;
+            this.schemaName = schemaName;
+            this.rows = rows;
+        }
+
+        @Override
+        protected boolean shouldBulkSelect(String schemaKey, ResultSetCache resultSetCache) {
+            return true;
+        }
+
+        @Override
+        public boolean bulkContainsSchema(String schemaKey) {
+            return false;
+        }
+
+        @Override
+        public ResultSetCache.RowData rowKeyParameters(CachedRow row) {
+            String[] parameters = new String[type.keyColumns.length];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = row.getString(type.keyColumns[i]);
+            }
+            return type.schemaColumn == null
+                    ? rowData(catalogName, schemaName, parameters)
+                    : rowData(row.getString(type.catalogColumn), row.getString(type.schemaColumn), parameters);
+        }
+
+        @Override
+        public ResultSetCache.RowData wantedKeyParameters() {
+            return rowData(catalogName, schemaName, new String[type.keyColumns.length]);
+        }
+
+        @Override
+        public List<CachedRow> fastFetch() {
+            return rows;
+        }
+
+        @Override
+        public List<CachedRow> bulkFetch() {
+            return rows;
+        }
+
+        private ResultSetCache.RowData rowData(String catalog, String schema, String[] parameters) {
+            return new ResultSetCache.RowData(catalog, schema, database, parameters) {
+            };
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.OracleDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * 按 URL + 模式保存在磁盘上的源码缓存，记录对象的 LAST_DDL_TIME 和源码（或摘要）。
+ * 下次快照时 LAST_DDL_TIME 未变化的对象直接从缓存取源码，只对变化的对象查询 DBA_SOURCE。
+ * <p>
+ * 文件只追加：读取时内存映射整个文件建立索引，源码在命中时才解码，同一对象后写的记录覆盖先写的；
+ * 过期记录过多或文件尾部损坏时整体重写。追加和重写都持有同目录下 .lock 文件的锁，重写时先写临时文件再原子替换。
+ */
+public class SnapshotBodyCache implements Closeable {
+
+    public static final String PROCEDURE = "PROCEDURE";
+    public static final String TRIGGER = "TRIGGER";
+
+    // Oracle / 达梦 IN 列表的上限
+    static final int MAX_IN_LIST = 1000;
+
+    private static final int MAGIC = 0x4C424443;
+    // 2：摘要按规范化后的语句头计算
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 8;
+    private static final int MIN_RECORDS_TO_COMPACT = 64;
+    private static final byte KIND_TEXT = 0;
+    private static final byte KIND_DIGEST = 1;
+
+    private final Path file;
+    private final Path lockFile;
+    private final Map<String, Entry> index = new HashMap<>();
+    private final Map<String, byte[]> appended = new LinkedHashMap<>();
+    private MappedByteBuffer mapped;
+    private long loadedSize;
+    private int records;
+    private boolean rewrite;
+
+    SnapshotBodyCache(Path file) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        load();
+    }
+
+    /**
+     * 配置了 liquibase.chinesedb.snapshot.cacheDirectory 且为 Oracle/达梦 JDBC 连接时启用
+     */
+    public static boolean isEnabled(Database database) {
+        return ChineseDbSnapshotConfiguration.CACHE_DIRECTORY.getCurrentValue() != null
+                && (database instanceof DMDatabase || database instanceof OracleDatabase)
+                && database.getConnection() instanceof JdbcConnection;
+    }
+
+    /**
+     * 打开数据库 URL + 模式对应的缓存。body 模式和注释规范化方式不同的快照使用不同的文件
+     */
+    public static SnapshotBodyCache open(Database database, String schemaName) {
+        String key = database.getConnection().getURL() + "|" + schemaName + "|"
+                + ChineseDbSnapshotConfiguration.BODY_MODE.getCurrentValue() + "|"
+                + ChineseDbSnapshotConfiguration.BODY_STRIP_COMMENTS.getCurrentValue();
+        String fileName = SourceBodyBuilder.toHex(SourceBodyBuilder.newDigest().digest(key.getBytes(StandardCharsets.UTF_8))).substring(0, 32) + ".bodies";
+        return new SnapshotBodyCache(Paths.get(ChineseDbSnapshotConfiguration.CACHE_DIRECTORY.getCurrentValue(), fileName));
+    }
+
+    /**
+     * 缓存中 LAST_DDL_TIME 相同的源码，不存在或已过期时返回 null
+     */
+    public SourceBody get(String type, String name, Long lastDdlTime) {
+        if (lastDdlTime == null) {
+            return null;
+        }
+        String key = key(type, name);
+        Entry entry = index.get(key);
+        if (entry == null || entry.lastDdlTime != lastDdlTime) {
+            return null;
+        }
+        byte[] record = appended.get(key);
+        return decode(record != null ? ByteBuffer.wrap(record) : slice(entry.offset, entry.length));
+    }
+
+    public void put(String type, String name, Long lastDdlTime, SourceBody body) {
+        if (lastDdlTime == null) {
+            return;
+        }
+        String key = key(type, name);
+        byte[] record = encode(type, name, lastDdlTime, body);
+        appended.put(key, record);
+        index.put(key, new Entry(lastDdlTime, -1, record.length));
+    }
+
+    /**
+     * 只保留本次列表中仍然存在的某类对象，已删除对象的记录在下次重写时去掉
+     */
+    public void retain(String type, Collection<String> names) {
+        Set<String> keys = new HashSet<>();
+        for (String name : names) {
+            keys.add(key(type, name));
+        }
+        String prefix = key(type, "");
+        index.keySet().removeIf(key -> key.startsWith(prefix) && !keys.contains(key));
+        appended.keySet().retainAll(index.keySet());
+    }
+
+    /**
+     * 写入本次新增的记录
+     */
+    @Override
+    public void close() {
+        try {
+            if (rewrite || (records > MIN_RECORDS_TO_COMPACT && records > 2 * index.size())) {
+                compact();
+            } else if (!appended.isEmpty()) {
+                try (FileChannel lockChannel = openLockFile()) {
+                    FileLock lock = lockChannel.lock();
+                    try {
+                        append();
+                    } finally {
+                        lock.release();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not write snapshot body cache " + file + ": " + e.getMessage());
+        } finally {
+            unmap();
+            appended.clear();
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                rewrite = true;
+                return;
+            }
+            loadedSize = size;
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_LENGTH || mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                rewrite = true;
+                return;
+            }
+            CRC32 crc = new CRC32();
+            while (mapped.remaining() >= 8) {
+                int length = mapped.getInt();
+                int checksum = mapped.getInt();
+                if (length <= 0 || length > mapped.remaining()) {
+                    mapped.position(mapped.position() - 8);
+                    break;
+                }
+                int offset = mapped.position();
+                crc.reset();
+                crc.update(slice(offset, length));
+                if ((int) crc.getValue() != checksum) {
+                    mapped.position(offset - 8);
+                    break;
+                }
+                ByteBuffer record = slice(offset, length);
+                String type = readString(record);
+                String name = readString(record);
+                index.put(key(type, name), new Entry(record.getLong(), offset, length));
+                records++;
+                mapped.position(offset + length);
+            }
+            // 上次写入中断留下的残缺记录
+            if (mapped.hasRemaining()) {
+                rewrite = true;
+            }
+        } catch (IOException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Ignoring unreadable snapshot body cache " + file + ": " + e.getMessage());
+            index.clear();
+            unmap();
+            rewrite = true;
+        }
+    }
+
+    // 调用方持有锁
+    private void append() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                writeFully(channel, header());
+            }
+            channel.position(channel.size());
+            for (byte[] record : appended.values()) {
+                writeFully(channel, frame(ByteBuffer.wrap(record)));
+            }
+            channel.force(false);
+        }
+    }
+
+    private void compact() throws IOException {
+        try (FileChannel lockChannel = openLockFile()) {
+            FileLock lock = lockChannel.lock();
+            try {
+                // 读取之后其它进程又追加过记录时不重写，只追加本次的记录，留待下次重写
+                if (!rewrite && (!Files.isRegularFile(file) || Files.size(file) != loadedSize)) {
+                    if (!appended.isEmpty()) {
+                        append();
+                    }
+                    return;
+                }
+                Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+                try {
+                    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        writeFully(channel, header());
+                        for (Map.Entry<String, Entry> entry : index.entrySet()) {
+                            byte[] record = appended.get(entry.getKey());
+                            writeFully(channel, frame(record != null ? ByteBuffer.wrap(record) : slice(entry.getValue().offset, entry.getValue().length)));
+                        }
+                        channel.force(false);
+                    }
+                    // Windows 下被映射的文件不能被替换，先释放映射
+                    unmap();
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * 同目录下的 .lock 文件。锁文件不会被替换，重写前后的追加和重写都由它的锁串行化
+     */
+    private FileChannel openLockFile() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 释放文件映射。映射要等 GC 才会解除，这里主动调用 cleaner（Java 9 以上为 Unsafe.invokeCleaner，Java 8 为 DirectBuffer.cleaner），
+     * 都不可用时只丢弃引用。调用后不能再读取映射中的记录
+     */
+    private void unmap() {
+        MappedByteBuffer buffer = mapped;
+        mapped = null;
+        if (buffer == null) {
+            return;
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            invokeCleaner.invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(getClass()).fine("Could not unmap snapshot body cache " + file + ": " + e);
+        }
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    private static ByteBuffer frame(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        ByteBuffer buffer = ByteBuffer.allocate(8 + record.remaining());
+        buffer.putInt(record.remaining()).putInt((int) crc.getValue()).put(record).flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // 映射文件中一条记录的只读视图
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset).limit(offset + length);
+        return buffer.slice();
+    }
+
+    /**
+     * 记录格式：类型、名称、LAST_DDL_TIME、源码长度、内容类型（全文/摘要）、UTF-8 内容
+     */
+    private static byte[] encode(String type, String name, long lastDdlTime, SourceBody body) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = (body.getText() != null ? body.getText() : body.getDigest()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + typeBytes.length + 4 + nameBytes.length + 8 + 8 + 1 + 4 + payload.length);
+        buffer.putInt(typeBytes.length).put(typeBytes)
+                .putInt(nameBytes.length).put(nameBytes)
+                .putLong(lastDdlTime)
+                .putLong(body.getLength())
+                .put(body.getText() != null ? KIND_TEXT : KIND_DIGEST)
+                .putInt(payload.length).put(payload);
+        return buffer.array();
+    }
+
+    private static SourceBody decode(ByteBuffer record) {
+        readString(record);
+        readString(record);
+        record.getLong();
+        long length = record.getLong();
+        byte kind = record.get();
+        String value = readString(record);
+        return kind == KIND_TEXT ? new SourceBody(value, null, length) : new SourceBody(null, value, length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String key(String type, String name) {
+        return type + ":" + name;
+    }
+
+    /**
+     * LAST_DDL_TIME 列的值转换为毫秒，为空时返回 null（不缓存）
+     */
+    public static Long toMillis(Object lastDdlTime) {
+        return lastDdlTime instanceof Date ? ((Date) lastDdlTime).getTime() : null;
+    }
+
+    /**
+     * 按 IN 列表上限切分对象名
+     */
+    static List<List<String>> partition(Collection<String> names) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = null;
+        for (String name : names) {
+            if (chunk == null || chunk.size() == MAX_IN_LIST) {
+                chunk = new ArrayList<>(Math.min(MAX_IN_LIST, names.size()));
+                chunks.add(chunk);
+            }
+            chunk.add(name);
+        }
+        return chunks;
+    }
+
+    private static class Entry {
+        private final long lastDdlTime;
+        // 在映射文件中的位置，本次新增的记录为 -1
+        private final int offset;
+        private final int length;
+
+        Entry(long lastDdlTime, int offset, int length) {
+            this.lastDdlTime = lastDdlTime;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.structure.DatabaseObject;
+
+/**
+ * 存储过程、触发器等对象的源码。完整模式下保存全文，hash 模式下只保存摘要和长度，
+ * compressed 模式下保存压缩的全文（{@link CompressedBody}）以及比较用的摘要和长度。
+ */
+public class SourceBody {
+
+    public static final String BODY_ATTRIBUTE = "body";
+    public static final String DIGEST_ATTRIBUTE = "bodyDigest";
+    public static final String LENGTH_ATTRIBUTE = "bodyLength";
+    public static final String COMPRESSED_ATTRIBUTE = "bodyCompressed";
+
+    private final String text;
+    private final String digest;
+    private final long length;
+
+    SourceBody(String text, String digest, long length) {
+        this.text = text;
+        this.digest = digest;
+        this.length = length;
+    }
+
+    /**
+     * 全文，hash 模式下为 null
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * SHA-256 摘要（十六进制），完整模式下为 null
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void applyTo(DatabaseObject object) {
+        if (text != null && ChineseDbSnapshotConfiguration.BODY_MODE.getCurrentValue() == ChineseDbSnapshotConfiguration.BodyMode.COMPRESSED) {
+            // 摘要在这里算好，比较时不必解压
+            object.setAttribute(COMPRESSED_ATTRIBUTE, CompressedBody.of(text));
+            object.setAttribute(DIGEST_ATTRIBUTE, SourceBodyNormalizer.digest(text));
+            object.setAttribute(LENGTH_ATTRIBUTE, length);
+        } else if (text != null) {
+            object.setAttribute(BODY_ATTRIBUTE, text);
+        } else {
+            object.setAttribute(DIGEST_ATTRIBUTE, digest);
+            object.setAttribute(LENGTH_ATTRIBUTE, length);
+        }
+    }
+
+    /**
+     * 对象的源码是否已经取得（全文或摘要）
+     */
+    public static boolean isLoaded(DatabaseObject object) {
+        return object.getAttribute(BODY_ATTRIBUTE, Object.class) != null || object.getAttribute(DIGEST_ATTRIBUTE, String.class) != null;
+    }
+
+    /**
+     * 对象上保存的全文，压缩保存的在这里解压；hash 模式或没有源码时返回 null
+     */
+    public static String readText(DatabaseObject object) {
+        String body = object.getAttribute(BODY_ATTRIBUTE, String.class);
+        if (body != null) {
+            return body;
+        }
+        CompressedBody compressed = object.getAttribute(COMPRESSED_ATTRIBUTE, CompressedBody.class);
+        return compressed == null ? null : compressed.inflate();
+    }
+}
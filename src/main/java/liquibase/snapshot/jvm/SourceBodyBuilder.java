@@ -0,0 +1,149 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 逐行拼接源码。已知总长度时一次分配 StringBuilder，CLOB 列直接从 Reader 读取；
+ * hash 模式下不保留全文，只把规范化后的 UTF-8 字节送入 SHA-256。
+ */
+public class SourceBodyBuilder {
+
+    private static final int DEFAULT_CAPACITY = 200;
+    private static final int MAX_PRESIZE = 64 * 1024 * 1024;
+
+    private final StringBuilder text;
+    private final MessageDigest digest;
+    private final Writer digestWriter;
+    private long length;
+
+    public SourceBodyBuilder(boolean hashOnly, long expectedLength) {
+        if (hashOnly) {
+            this.text = null;
+            this.digest = newDigest();
+            this.digestWriter = SourceBodyNormalizer.newDigestWriter(digest);
+        } else {
+            this.text = new StringBuilder(expectedLength > 0 ? (int) Math.min(expectedLength, MAX_PRESIZE) : DEFAULT_CAPACITY);
+            this.digest = null;
+            this.digestWriter = null;
+        }
+    }
+
+    /**
+     * 按 liquibase.chinesedb.snapshot.bodyMode 创建
+     */
+    public static SourceBodyBuilder forCurrentMode(long expectedLength) {
+        return new SourceBodyBuilder(ChineseDbSnapshotConfiguration.BODY_MODE.getCurrentValue() == ChineseDbSnapshotConfiguration.BodyMode.HASH, expectedLength);
+    }
+
+    public SourceBodyBuilder append(String value) {
+        if (value == null) {
+            return this;
+        }
+        length += value.length();
+        if (text != null) {
+            text.append(value);
+        } else {
+            try {
+                digestWriter.write(value);
+            } catch (IOException e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+        }
+        return this;
+    }
+
+    public SourceBodyBuilder append(Reader reader) throws IOException {
+        if (reader == null) {
+            return this;
+        }
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            length += read;
+            if (text != null) {
+                text.append(buffer, 0, read);
+            } else {
+                digestWriter.write(buffer, 0, read);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 追加结果集当前行的某一列，CLOB/LONG 类型走字符流，避免先整体物化成 String
+     */
+    public SourceBodyBuilder appendColumn(ResultSet resultSet, int column) throws SQLException {
+        if (isStreamType(resultSet.getMetaData(), column)) {
+            try (Reader reader = resultSet.getCharacterStream(column)) {
+                return append(reader);
+            } catch (IOException e) {
+                throw new SQLException(e);
+            }
+        }
+        return append(resultSet.getString(column));
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public SourceBody build() {
+        if (text != null) {
+            return new SourceBody(text.toString(), null, length);
+        }
+        try {
+            digestWriter.close();
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+        return new SourceBody(null, toHex(digest.digest()), length);
+    }
+
+    /**
+     * 结果集第二列为 TOTAL_LENGTH 时返回其值，用于预分配
+     */
+    static long expectedLength(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        if (metaData != null && metaData.getColumnCount() > 1 && "TOTAL_LENGTH".equalsIgnoreCase(metaData.getColumnLabel(2))) {
+            return resultSet.getLong(2);
+        }
+        return 0;
+    }
+
+    private static boolean isStreamType(ResultSetMetaData metaData, int column) throws SQLException {
+        if (metaData == null) {
+            return false;
+        }
+        int type = metaData.getColumnType(column);
+        return type == Types.CLOB || type == Types.NCLOB || type == Types.LONGVARCHAR || type == Types.LONGNVARCHAR;
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = "0123456789abcdef".toCharArray();
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = hex[(bytes[i] >> 4) & 0xF];
+            result[i * 2 + 1] = hex[bytes[i] & 0xF];
+        }
+        return new String(result);
+    }
+}
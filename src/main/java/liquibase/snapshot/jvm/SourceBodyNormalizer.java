@@ -0,0 +1,257 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 源码规范化：统一换行为 \n，去掉行尾空白以及首尾空行，可选去掉 -- 和块注释。
+ * 引号内的内容原样保留。以 Writer 的形式逐字符处理，不需要先拿到全文。
+ * <p>
+ * 开头的 CREATE 语句头统一写成 CREATE OR REPLACE 类型 名称，去掉模式限定：DBA_SOURCE 保存的是用户写的原文，
+ * DBMS_METADATA.GET_DDL 生成的是 CREATE OR REPLACE PROCEDURE "OWNER"."NAME"，两种来源以及不同模式中的同一对象得到相同的摘要。
+ */
+public class SourceBodyNormalizer extends Writer {
+
+    // 语句头只在开头这么多字符内查找，之前的字符暂存
+    private static final int HEADER_LIMIT = 1024;
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^\\s*CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:(?:NON)?EDITIONABLE\\s+)?"
+            + "(PROCEDURE|FUNCTION|TRIGGER|PACKAGE\\s+BODY|PACKAGE|TYPE\\s+BODY|TYPE)\\s+"
+            + "(?:(?:\"[^\"]*\"|[^\\s.\"(;]+)\\s*\\.\\s*)?(\"[^\"]*\"|[^\\s.\"(;]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIMPLE_NAME_PATTERN = Pattern.compile("[A-Z_][A-Z0-9_$#]*");
+
+    private enum State {
+        CODE,
+        QUOTED,
+        LINE_COMMENT,
+        BLOCK_COMMENT
+    }
+
+    private final Writer out;
+    private final boolean stripComments;
+    private final StringBuilder pendingSpaces = new StringBuilder();
+    private StringBuilder header = new StringBuilder();
+    private int pendingNewlines;
+    private boolean started;
+    private boolean afterCarriageReturn;
+    private State state = State.CODE;
+    private char quote;
+    // 等待下一个字符决定是否为注释开头的 '-' 或 '/'
+    private char held;
+    private boolean afterStar;
+    // 块注释连同两侧的空白只保留一个空格
+    private boolean afterBlockComment;
+
+    public SourceBodyNormalizer(Writer out, boolean stripComments) {
+        this.out = out;
+        this.stripComments = stripComments;
+    }
+
+    /**
+     * 按当前配置规范化后计算 SHA-256，与 hash 模式快照中的 bodyDigest 一致
+     */
+    public static String digest(String text) {
+        MessageDigest digest = SourceBodyBuilder.newDigest();
+        try (Writer writer = newDigestWriter(digest)) {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+        return SourceBodyBuilder.toHex(digest.digest());
+    }
+
+    static Writer newDigestWriter(MessageDigest digest) {
+        return new SourceBodyNormalizer(new OutputStreamWriter(new DigestOutputStream(NullOutputStream.INSTANCE, digest), StandardCharsets.UTF_8),
+                ChineseDbSnapshotConfiguration.BODY_STRIP_COMMENTS.getCurrentValue());
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            receive(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String value, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            receive(value.charAt(i));
+        }
+    }
+
+    private void receive(char c) throws IOException {
+        if (header == null) {
+            accept(c);
+            return;
+        }
+        header.append(c);
+        if (header.length() >= HEADER_LIMIT) {
+            flushHeader();
+        }
+    }
+
+    // 规范化暂存的开头部分，之后的字符直接处理
+    private void flushHeader() throws IOException {
+        String text = canonicalHeader(header);
+        header = null;
+        for (int i = 0; i < text.length(); i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * 把开头的 CREATE [OR REPLACE] 类型 [模式.]名称 改写为 CREATE OR REPLACE 类型 名称。
+     * 不带引号的名称转为大写，带引号且为普通大写标识符的名称去掉引号；不是 CREATE 语句时原样返回
+     */
+    static String canonicalHeader(CharSequence text) {
+        Matcher matcher = HEADER_PATTERN.matcher(text);
+        if (!matcher.find()) {
+            return text.toString();
+        }
+        String type = matcher.group(1).toUpperCase(Locale.US).replaceAll("\\s+", " ");
+        String name = matcher.group(2);
+        if (name.startsWith("\"")) {
+            String unquoted = name.substring(1, name.length() - 1);
+            if (SIMPLE_NAME_PATTERN.matcher(unquoted).matches()) {
+                name = unquoted;
+            }
+        } else {
+            name = name.toUpperCase(Locale.US);
+        }
+        return "CREATE OR REPLACE " + type + " " + name + text.subSequence(matcher.end(), text.length());
+    }
+
+    private void accept(char c) throws IOException {
+        if (afterCarriageReturn) {
+            afterCarriageReturn = false;
+            if (c == '\n') {
+                return;
+            }
+        }
+        if (c == '\r') {
+            afterCarriageReturn = true;
+            c = '\n';
+        }
+        switch (state) {
+            case LINE_COMMENT:
+                if (c == '\n') {
+                    state = State.CODE;
+                    layout(c);
+                }
+                return;
+            case BLOCK_COMMENT:
+                if (afterStar && c == '/') {
+                    state = State.CODE;
+                    afterStar = false;
+                    if (pendingSpaces.length() == 0) {
+                        pendingSpaces.append(' ');
+                    }
+                    afterBlockComment = true;
+                } else {
+                    afterStar = c == '*';
+                }
+                return;
+            case QUOTED:
+                afterBlockComment = false;
+                flushPending();
+                out.write(c);
+                if (c == quote) {
+                    state = State.CODE;
+                }
+                return;
+            default:
+                if (held != 0) {
+                    char previous = held;
+                    held = 0;
+                    if (previous == '-' && c == '-') {
+                        state = State.LINE_COMMENT;
+                        return;
+                    }
+                    if (previous == '/' && c == '*') {
+                        state = State.BLOCK_COMMENT;
+                        return;
+                    }
+                    layout(previous);
+                }
+                if (stripComments && (c == '-' || c == '/')) {
+                    held = c;
+                    return;
+                }
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                    state = State.QUOTED;
+                }
+                layout(c);
+        }
+    }
+
+    private void layout(char c) throws IOException {
+        if (c == '\n') {
+            afterBlockComment = false;
+            pendingSpaces.setLength(0);
+            pendingNewlines++;
+        } else if (Character.isWhitespace(c)) {
+            if (!afterBlockComment) {
+                pendingSpaces.append(c);
+            }
+        } else {
+            afterBlockComment = false;
+            flushPending();
+            out.write(c);
+        }
+    }
+
+    private void flushPending() throws IOException {
+        if (started) {
+            for (int i = 0; i < pendingNewlines; i++) {
+                out.write('\n');
+            }
+            out.append(pendingSpaces);
+        }
+        started = true;
+        pendingNewlines = 0;
+        pendingSpaces.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 结束输入：末尾的空白和空行被丢弃
+     */
+    @Override
+    public void close() throws IOException {
+        if (header != null) {
+            flushHeader();
+        }
+        if (held != 0 && state == State.CODE) {
+            layout(held);
+        }
+        held = 0;
+        out.close();
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        private static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 以游标方式逐行处理字典查询结果。与 Executor.queryForList 不同，不会先把全部行转成 Map，
+ * 驱动按 fetchSize 分批取行，内存占用与批大小有关而与对象数量无关
+ */
+final class StreamingQuery {
+
+    /**
+     * 处理当前行，不能移动游标
+     */
+    interface RowCallback {
+        void processRow(ResultSet resultSet) throws SQLException;
+    }
+
+    private StreamingQuery() {
+    }
+
+    static void forEachRow(Connection connection, String sql, RowCallback handler) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                while (resultSet.next()) {
+                    handler.processRow(resultSet);
+                }
+            }
+        }
+    }
+
+    /**
+     * sql 只有一个参数（通常是模式名）时使用
+     */
+    static void forEachRow(Connection connection, String sql, String parameter, RowCallback handler) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, parameter);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.processRow(resultSet);
+                }
+            }
+        }
+    }
+}
@@ -2,64 +2,73 @@ package liquibase.snapshot.jvm;
 
 import liquibase.Scope;
 import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
 import liquibase.database.core.MSSQLDatabase;
 import liquibase.database.core.MySQLDatabase;
 import liquibase.database.core.OracleDatabase;
-import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
-import liquibase.executor.ExecutorService;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
 import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.snapshot.InvalidExampleException;
-import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Schema;
 import liquibase.structure.core.Table;
 import liquibase.structure.core.Trigger;
+import liquibase.util.StringUtil;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 生成创建触发器快照
  */
 public class TriggerSnapshotGenerator extends JdbcSnapshotGenerator {
 
+    // 快照 -> 触发器 identity key 的规范化表，快照被回收后随之清除
+    private static final Map<DatabaseSnapshot, Map<String, String>> IDENTITY_KEYS = new WeakHashMap<>();
+
     public TriggerSnapshotGenerator() {
         super(Trigger.class, new Class[]{Schema.class}); //添加到所属的模式中
     }
 
     @Override
     protected DatabaseObject snapshotObject(DatabaseObject example, DatabaseSnapshot snapshot) throws DatabaseException, InvalidExampleException {
-        if (((Trigger) example).getBody() != null) {
+        if (SourceBody.isLoaded(example)) {
             return example;
         }
         // 获取存储过程主体
         Trigger trigger = (Trigger) example;
         Database database = snapshot.getDatabase();
-        Schema schema = example.getSchema();
-        Connection connection = null;
-        if (database.getConnection() instanceof JdbcConnection) {
-            connection = ((JdbcConnection) database.getConnection()).getWrappedConnection();
+        // 人大金仓的定义随列表一起取回，不逐个查询
+        if (database instanceof KingBaseDatabase) {
+            return trigger;
         }
+        Schema schema = example.getSchema();
+        Connection connection = getConnection(database);
         if (connection != null) {
-            try {
-                PreparedStatement preparedStatement = connection.prepareStatement(getBodySql(schema, database, trigger));
-                ResultSet resultSet = preparedStatement.executeQuery();
-                if (resultSet != null) {
-                    if (database instanceof MySQLDatabase) {
-                        trigger.setBody(resultSet.getString("SQL Original Statement"));
-                    } else if (database instanceof OracleDatabase) {
-                        trigger.setBody("CREATE " + getSQL(resultSet));
-                    } else {
-                        trigger.setBody(getSQL(resultSet));
-                    }
-                    return trigger;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(getBodySql(schema, database, trigger))) {
+                if (database instanceof MySQLDatabase) {
+                    trigger.setBody(resultSet.getString("SQL Original Statement"));
+                } else if (database instanceof OracleDatabase) {
+                    getSourceBody(resultSet, "CREATE ").applyTo(trigger);
+                } else {
+                    getSourceBody(resultSet, "").applyTo(trigger);
                 }
+                return trigger;
             } catch (SQLException e) {
                 e.printStackTrace();
                 return null;
@@ -76,22 +85,278 @@ public class TriggerSnapshotGenerator extends JdbcSnapshotGenerator {
         //此处不使用从JdbcDatabaseSnapshot 中获取cache方式来获取存储过程，使用SQL方式来获取存储过程
         if (foundObject instanceof Schema) {
             Schema schema = (Schema) foundObject;
-            Database database = snapshot.getDatabase();
-            List<Map<String, ?>> triggers = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).queryForList(new RawSqlStatement(getTriggerSql(schema, database)));
-            if (triggers != null) {
-                for (Map<String, ?> trigger : triggers) {
-                    schema.addDatabaseObject(mapToTrigger(trigger, (Schema) foundObject, database));
+            addTriggers(schema, snapshot);
+            Map<String, String> identityKeys = getIdentityKeys(snapshot);
+            for (Trigger trigger : schema.getDatabaseObjects(Trigger.class)) {
+                trigger.fixIdentity(identityKeys);
+            }
+        }
+    }
+
+    private void addTriggers(Schema schema, DatabaseSnapshot snapshot) throws DatabaseException {
+        Database database = snapshot.getDatabase();
+        if (database instanceof DMDatabase) {
+            addDMTriggers(schema, database, snapshot);
+            return;
+        }
+        if (database instanceof KingBaseDatabase) {
+            addKingBaseTriggers(schema, database);
+            return;
+        }
+        Connection connection = getConnection(database);
+        if (connection == null) {
+            return;
+        }
+        try {
+            // 逐行建立触发器对象，不经过 queryForList 的中间 Map
+            StreamingQuery.forEachRow(connection, getTriggerSql(schema, database), resultSet ->
+                    schema.addDatabaseObject(mapToTrigger(resultSet.getString("TRIGGER_NAME"), resultSet.getString("TABLE_NAME"), schema, database)));
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * 快照内触发器 identity key 的规范化表
+     */
+    private static Map<String, String> getIdentityKeys(DatabaseSnapshot snapshot) {
+        synchronized (IDENTITY_KEYS) {
+            return IDENTITY_KEYS.computeIfAbsent(snapshot, key -> new ConcurrentHashMap<>());
+        }
+    }
+
+
+    /**
+     * 达梦：ALL_TRIGGERS 关联 DBA_SOURCE，一次查询同时得到触发器列表和按 LINE 排序的源码，
+     * 不再逐个触发器查询 body
+     */
+    private void addDMTriggers(Schema schema, Database database, DatabaseSnapshot snapshot) throws DatabaseException {
+        if (DMMetadataDdl.isEnabled(database) && addMetadataDMTriggers(schema, database)) {
+            return;
+        }
+        if (SnapshotBodyCache.isEnabled(database)) {
+            addChangedDMTriggers(schema, database);
+            return;
+        }
+        List<TriggerSource> sources;
+        if (ParallelSnapshotSupport.isEnabled(database)) {
+            ParallelSnapshotSupport.schedule(snapshot, schema);
+            sources = ParallelSnapshotSupport.take(snapshot, schema, ParallelSnapshotSupport.DM_TRIGGERS);
+        } else {
+            Connection connection = getConnection(database);
+            if (connection == null) {
+                return;
+            }
+            try {
+                sources = loadDMTriggers(connection, schema.getName());
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+        for (TriggerSource source : sources) {
+            Trigger trigger = mapToTrigger(source.name, source.tableName, schema, database);
+            // 没有源码行时保持 body 为空，由 snapshotObject 单独查询
+            if (!source.body.isEmpty()) {
+                source.body.build().applyTo(trigger);
+            }
+            schema.addDatabaseObject(trigger);
+        }
+    }
+
+    /**
+     * 达梦 DBMS_METADATA：一次查询得到触发器列表和 GET_DDL 生成的定义。
+     * 查询失败（如缺少 DBMS_METADATA 权限）时记录警告并返回 false，由调用方改用 DBA_SOURCE
+     */
+    private boolean addMetadataDMTriggers(Schema schema, Database database) throws DatabaseException {
+        Connection connection = getConnection(database);
+        List<Trigger> triggers = new ArrayList<>();
+        try {
+            StreamingQuery.forEachRow(connection, DMMetadataDdl.getTriggerSql(), schema.getName(), resultSet -> {
+                Trigger trigger = mapToTrigger(resultSet.getString("TRIGGER_NAME"), resultSet.getString("TABLE_NAME"), schema, database);
+                SourceBody body = DMMetadataDdl.read(resultSet, false);
+                // 没有定义时保持 body 为空，由 snapshotObject 单独查询
+                if (body.getLength() > 0) {
+                    body.applyTo(trigger);
+                }
+                triggers.add(trigger);
+            });
+        } catch (SQLException e) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not read trigger DDL from DBMS_METADATA for schema " + schema.getName() + ", falling back to DBA_SOURCE: " + e.getMessage());
+            return false;
+        }
+        for (Trigger trigger : triggers) {
+            schema.addDatabaseObject(trigger);
+        }
+        return true;
+    }
+
+    /**
+     * 人大金仓：一次查询 pg_trigger 得到触发器、所属表和 pg_get_triggerdef 生成的完整定义，
+     * 不含外键等约束使用的内部触发器
+     */
+    private void addKingBaseTriggers(Schema schema, Database database) throws DatabaseException {
+        Connection connection = getConnection(database);
+        if (connection == null) {
+            return;
+        }
+        try {
+            StreamingQuery.forEachRow(connection, getKingBaseTriggerSql(database.correctObjectName(schema.getName(), Schema.class)), resultSet -> {
+                Trigger trigger = mapToTrigger(resultSet.getString("TRIGGER_NAME"), resultSet.getString("TABLE_NAME"), schema, database);
+                String definition = resultSet.getString("TRIGGER_BODY");
+                if (definition != null) {
+                    SourceBodyBuilder.forCurrentMode(definition.length()).append(definition).build().applyTo(trigger);
+                }
+                schema.addDatabaseObject(trigger);
+            });
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * 增量模式：先查询触发器列表和 LAST_DDL_TIME，只为 LAST_DDL_TIME 与缓存不一致的触发器查询源码
+     */
+    private void addChangedDMTriggers(Schema schema, Database database) throws DatabaseException {
+        Connection connection = getConnection(database);
+        if (connection == null) {
+            return;
+        }
+        try (SnapshotBodyCache cache = SnapshotBodyCache.open(database, schema.getName())) {
+            Map<String, TriggerSource> listed = listDMTriggers(connection, schema.getName());
+            cache.retain(SnapshotBodyCache.TRIGGER, listed.keySet());
+            Map<String, SourceBody> bodies = new HashMap<>();
+            List<String> changed = new ArrayList<>();
+            for (TriggerSource source : listed.values()) {
+                SourceBody body = cache.get(SnapshotBodyCache.TRIGGER, source.name, source.lastDdlTime);
+                if (body != null) {
+                    bodies.put(source.name, body);
+                } else {
+                    changed.add(source.name);
+                }
+            }
+            Scope.getCurrentScope().getLog(getClass()).fine("Trigger bodies in schema " + schema.getName() + ": " + bodies.size() + " from cache, " + changed.size() + " changed");
+            for (List<String> chunk : SnapshotBodyCache.partition(changed)) {
+                for (TriggerSource source : loadDMTriggers(connection, schema.getName(), chunk)) {
+                    if (!source.body.isEmpty()) {
+                        SourceBody body = source.body.build();
+                        bodies.put(source.name, body);
+                        cache.put(SnapshotBodyCache.TRIGGER, source.name, listed.get(source.name).lastDdlTime, body);
+                    }
+                }
+            }
+            for (TriggerSource source : listed.values()) {
+                Trigger trigger = mapToTrigger(source.name, source.tableName, schema, database);
+                // 没有源码行时保持 body 为空，由 snapshotObject 单独查询
+                if (bodies.containsKey(source.name)) {
+                    bodies.get(source.name).applyTo(trigger);
+                }
+                schema.addDatabaseObject(trigger);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * 触发器名称 -> 不含源码的字典信息，按名称排序
+     */
+    private static Map<String, TriggerSource> listDMTriggers(Connection connection, String schemaName) throws SQLException {
+        Map<String, TriggerSource> sources = new LinkedHashMap<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(getTriggerDdlTimeSql())) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, schemaName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String name = resultSet.getString("TRIGGER_NAME");
+                    sources.put(name, TriggerSource.listed(name, resultSet.getString("TABLE_NAME"), SnapshotBodyCache.toMillis(resultSet.getTimestamp("LAST_DDL_TIME"))));
                 }
             }
         }
+        return sources;
     }
 
+    /**
+     * 流式读取模式下全部触发器及源码，不依赖快照状态，可以在并行快照的独立连接上执行
+     */
+    static List<TriggerSource> loadDMTriggers(Connection connection, String schemaName) throws SQLException {
+        return loadDMTriggers(connection, schemaName, Collections.<String>emptyList());
+    }
 
-    private DatabaseObject mapToTrigger(Map<String, ?> trigger, Schema schema, Database database) {
-        String name = cleanNameFromDatabase((String) trigger.get("TRIGGER_NAME"), database);
+    /**
+     * names 不为空时只读取这些触发器，调用方保证不超过 IN 列表上限
+     */
+    private static List<TriggerSource> loadDMTriggers(Connection connection, String schemaName, List<String> names) throws SQLException {
+        List<TriggerSource> sources = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(getTriggerWithBodySql(names.size()))) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, schemaName);
+            for (int i = 0; i < names.size(); i++) {
+                preparedStatement.setString(i + 2, names.get(i));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                TriggerSource current = null;
+                String currentKey = null;
+                while (resultSet.next()) {
+                    String key = resultSet.getString("OWNER") + "." + resultSet.getString("TRIGGER_NAME");
+                    if (!key.equals(currentKey)) {
+                        currentKey = key;
+                        current = new TriggerSource(resultSet.getString("TRIGGER_NAME"), resultSet.getString("TABLE_NAME"), resultSet.getLong("TOTAL_LENGTH"));
+                        sources.add(current);
+                    }
+                    current.body.append(resultSet.getString("TEXT"));
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 一个触发器的字典信息
+     */
+    static class TriggerSource {
+        private final String name;
+        private final String tableName;
+        private final SourceBodyBuilder body;
+        private final Long lastDdlTime;
+
+        TriggerSource(String name, String tableName, long expectedLength) {
+            this(name, tableName, SourceBodyBuilder.forCurrentMode(expectedLength), null);
+        }
+
+        private TriggerSource(String name, String tableName, SourceBodyBuilder body, Long lastDdlTime) {
+            this.name = name;
+            this.tableName = tableName;
+            this.body = body;
+            this.lastDdlTime = lastDdlTime;
+        }
+
+        // 只有列表信息，不含源码
+        static TriggerSource listed(String name, String tableName, Long lastDdlTime) {
+            return new TriggerSource(name, tableName, null, lastDdlTime);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getTableName() {
+            return tableName;
+        }
+
+        SourceBody buildBody() {
+            return body.build();
+        }
+    }
+
+    // 字典查询的连接，配置了只读副本时不使用主连接
+    private Connection getConnection(Database database) throws DatabaseException {
+        return CatalogConnection.of(database);
+    }
+
+    private Trigger mapToTrigger(String triggerName, String tableName, Schema schema, Database database) {
+        String name = cleanNameFromDatabase(triggerName, database);
         Trigger addTrigger = new Trigger(schema.getCatalogName(), schema.getName(), name);
         addTrigger.setAttribute("liquibase-complete", true);
-        String tableName = (String) trigger.get("TABLE_NAME");
         Table table = new Table();
         table.setName(tableName);
         table.setSchema(schema);
@@ -102,8 +367,8 @@ public class TriggerSnapshotGenerator extends JdbcSnapshotGenerator {
     private String getBodySql(Schema schema, Database database, Trigger trigger) {
         if (database instanceof MySQLDatabase) {
             return "SHOW CREATE TRIGGER " + schema.getName() + "." + trigger.getName();
-        } else if (database instanceof OracleDatabase) {
-            return "SELECT\n" + "\tTEXT\n" + "FROM\n" + "\tDBA_SOURCE\n" + "WHERE\n" + "\tTYPE ='TRIGGER' \n" + "\tAND OWNER ='" + schema.getName() + "'\n" + "\tAND NAME ='" + trigger.getName() + "'\n" + "ORDER BY\n" + "\tLINE";
+        } else if (database instanceof OracleDatabase || database instanceof DMDatabase) {
+            return "SELECT\n" + "\tTEXT,\n" + "\tSUM(LENGTH(TEXT)) OVER () AS TOTAL_LENGTH\n" + "FROM\n" + "\tDBA_SOURCE\n" + "WHERE\n" + "\tTYPE ='TRIGGER' \n" + "\tAND OWNER ='" + schema.getName() + "'\n" + "\tAND NAME ='" + trigger.getName() + "'\n" + "ORDER BY\n" + "\tLINE";
         } else if (database instanceof MSSQLDatabase) {
             return schema.getCatalogName() + ".sys.sp_helptext 'dbo." + trigger.getName() + "'";
         } else {
@@ -114,25 +379,88 @@ public class TriggerSnapshotGenerator extends JdbcSnapshotGenerator {
     // 此处只查询触发器名称
     private String getTriggerSql(Schema schema, Database database) {
         if (database instanceof MySQLDatabase) {
-            return "SELECT `TRIGGER_NAME` AS TRIGGER_NAME,\n" + "`TRIGGER_SCHEMA` AS SCHEMA_NAME,\n" + "`EVENT_OBJECT_TABLE` AS TABLE_NAME\n" + "FROM INFORMATION_SCHEMA.TRIGGERS\n" + "WHERE TRIGGER_SCHEMA = '" + schema.getName() + "'";
+            return "SELECT `TRIGGER_NAME` AS TRIGGER_NAME,\n" + "`TRIGGER_SCHEMA` AS SCHEMA_NAME,\n" + "`EVENT_OBJECT_TABLE` AS TABLE_NAME\n" + "FROM INFORMATION_SCHEMA.TRIGGERS\n" + "WHERE TRIGGER_SCHEMA = '" + schema.getName() + "'\n" + DictionaryNameFilter.predicates(Trigger.class, "TRIGGER_NAME");
         } else if (database instanceof OracleDatabase) {
-            return "SELECT\n" + "\tOWNER AS SCHEMA_NAME,\n" + "\tTRIGGER_NAME AS TRIGGER_NAME,\n" + "\tTABLE_NAME AS TABLE_NAME\n" + "FROM\n" + "\tALL_TRIGGERS\n" + "WHERE\n" + "\tTABLE_OWNER = '" + schema.getName() + "'\n" + "\tAND BASE_OBJECT_TYPE='TABLE'\n" + "ORDER BY\n" + "\tTRIGGER_NAME";
+            return "SELECT\n" + "\tOWNER AS SCHEMA_NAME,\n" + "\tTRIGGER_NAME AS TRIGGER_NAME,\n" + "\tTABLE_NAME AS TABLE_NAME\n" + "FROM\n" + "\tALL_TRIGGERS\n" + "WHERE\n" + "\tTABLE_OWNER = '" + schema.getName() + "'\n" + "\tAND BASE_OBJECT_TYPE='TABLE'\n" + DictionaryNameFilter.predicates(Trigger.class, "TRIGGER_NAME") + "ORDER BY\n" + "\tTRIGGER_NAME";
         } else if (database instanceof MSSQLDatabase) {
-            return "SELECT t.name AS TRIGGER_NAME,\n" + "'dbo' AS SCHMEA_NAME,\n" + "obj.name AS TABLE_NAME \n" + "FROM \n" + schema.getCatalogName() + ".sys.triggers t," + schema.getCatalogName() + ".sys.all_objects o, " + schema.getCatalogName() + ".sys.sysobjects obj \n" + "WHERE o.object_id=t.object_id AND obj.id = t.parent_id AND obj.xtype ='U' AND o.schema_id=1\n" + "ORDER BY t.name";
+            return "SELECT t.name AS TRIGGER_NAME,\n" + "'dbo' AS SCHMEA_NAME,\n" + "obj.name AS TABLE_NAME \n" + "FROM \n" + schema.getCatalogName() + ".sys.triggers t," + schema.getCatalogName() + ".sys.all_objects o, " + schema.getCatalogName() + ".sys.sysobjects obj \n" + "WHERE o.object_id=t.object_id AND obj.id = t.parent_id AND obj.xtype ='U' AND o.schema_id=1\n" + DictionaryNameFilter.predicates(Trigger.class, "t.name") + "ORDER BY t.name";
         } else {
             throw new UnexpectedLiquibaseException("Don't know how to query for procedure on " + database);
         }
     }
 
-    public String getSQL(ResultSet resultSet) throws SQLException { // 从resultset中获取SQL
-        StringBuilder source = null;
+    // 达梦触发器列表与源码一次取回，TABLE_OWNER 和可选的触发器名称通过参数绑定；不指定名称时按名称过滤和系统对象规则过滤
+    private static String getTriggerWithBodySql(int nameCount) {
+        String nameFilter = nameCount == 0 ? listFilter() : "\tAND T.TRIGGER_NAME IN (" + StringUtil.join(Collections.nCopies(nameCount, "?"), ",") + ")\n";
+        return "SELECT\n" + "\tT.OWNER AS OWNER,\n" + "\tT.TRIGGER_NAME AS TRIGGER_NAME,\n" + "\tT.TABLE_NAME AS TABLE_NAME,\n" + "\tS.TEXT AS TEXT,\n" + "\tSUM(LENGTH(S.TEXT)) OVER (PARTITION BY T.OWNER, T.TRIGGER_NAME) AS TOTAL_LENGTH\n" + "FROM\n" + "\tALL_TRIGGERS T\n" + "\tLEFT JOIN DBA_SOURCE S ON S.OWNER = T.OWNER AND S.NAME = T.TRIGGER_NAME AND S.TYPE = 'TRIGGER'\n" + "WHERE\n" + "\tT.TABLE_OWNER = ?\n" + "\tAND T.BASE_OBJECT_TYPE = 'TABLE'\n" + nameFilter + "ORDER BY\n" + "\tT.OWNER, T.TRIGGER_NAME, S.LINE";
+    }
+
+    // 达梦触发器列表及其 LAST_DDL_TIME，不含源码
+    private static String getTriggerDdlTimeSql() {
+        return "SELECT\n" + "\tT.TRIGGER_NAME AS TRIGGER_NAME,\n" + "\tT.TABLE_NAME AS TABLE_NAME,\n" + "\tO.LAST_DDL_TIME AS LAST_DDL_TIME\n" + "FROM\n" + "\tALL_TRIGGERS T\n" + "\tLEFT JOIN ALL_OBJECTS O ON O.OWNER = T.OWNER AND O.OBJECT_NAME = T.TRIGGER_NAME AND O.OBJECT_TYPE = 'TRIGGER'\n" + "WHERE\n" + "\tT.TABLE_OWNER = ?\n" + "\tAND T.BASE_OBJECT_TYPE = 'TABLE'\n" + listFilter() + "ORDER BY\n" + "\tT.TRIGGER_NAME";
+    }
+
+    // 人大金仓触发器列表与定义，系统表不加 pg_catalog 前缀，兼容 sys_catalog 下的同名视图
+    private static String getKingBaseTriggerSql(String schemaName) {
+        return "SELECT\n" + "\tt.tgname AS TRIGGER_NAME,\n" + "\tc.relname AS TABLE_NAME,\n" + "\tpg_get_triggerdef(t.oid) AS TRIGGER_BODY\n" + "FROM\n" + "\tpg_trigger t\n" + "\tJOIN pg_class c ON c.oid = t.tgrelid\n" + "\tJOIN pg_namespace n ON n.oid = c.relnamespace\n" + "WHERE\n" + "\tn.nspname = '" + schemaName + "'\n" + "\tAND NOT t.tgisinternal\n" + DictionaryNameFilter.predicates(Trigger.class, "t.tgname") + "ORDER BY\n" + "\tt.tgname";
+    }
+
+    private static String listFilter() {
+        return DictionaryNameFilter.predicates(Trigger.class, "T.TRIGGER_NAME") + DictionaryNameFilter.dmSystemPredicates("T.TRIGGER_NAME", "T.OWNER");
+    }
+
+    // 人大金仓单个触发器的定义，模式名和触发器名通过参数绑定
+    private static String getKingBaseTriggerBodySql() {
+        return "SELECT\n" + "\tpg_get_triggerdef(t.oid) AS TRIGGER_BODY\n" + "FROM\n" + "\tpg_trigger t\n" + "\tJOIN pg_class c ON c.oid = t.tgrelid\n" + "\tJOIN pg_namespace n ON n.oid = c.relnamespace\n" + "WHERE\n" + "\tn.nspname = ?\n" + "\tAND t.tgname = ?";
+    }
+
+    /**
+     * 从 resultset 中拼接源码，第一列为源码行，第二列为可选的 TOTAL_LENGTH
+     */
+    public SourceBody getSourceBody(ResultSet resultSet, String prefix) throws SQLException {
+        return getSourceBody(resultSet, prefix, ChineseDbSnapshotConfiguration.BODY_MODE.getCurrentValue() == ChineseDbSnapshotConfiguration.BodyMode.HASH);
+    }
+
+    private SourceBody getSourceBody(ResultSet resultSet, String prefix, boolean hashOnly) throws SQLException {
+        SourceBodyBuilder source = null;
         while (resultSet.next()) {
-            final String line = resultSet.getString(1);
             if (source == null) {
-                source = new StringBuilder(200);
+                source = new SourceBodyBuilder(hashOnly, prefix.length() + SourceBodyBuilder.expectedLength(resultSet)).append(prefix);
+            }
+            source.appendColumn(resultSet, 1);
+        }
+        return source == null ? new SourceBodyBuilder(hashOnly, 0).build() : source.build();
+    }
+
+    /**
+     * 读取触发器全文，不受 bodyMode 影响。hash 模式的快照只有摘要，需要生成变更时才调用
+     */
+    public String readBodyText(Trigger trigger, Database database) throws DatabaseException {
+        String text = SourceBody.readText(trigger);
+        if (text != null) {
+            return text;
+        }
+        Connection connection = getConnection(database);
+        // MySQL 的源码在快照时总是完整保存，不会走到这里
+        if (connection == null || database instanceof MySQLDatabase) {
+            return null;
+        }
+        try {
+            if (database instanceof KingBaseDatabase) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(getKingBaseTriggerBodySql())) {
+                    preparedStatement.setString(1, database.correctObjectName(trigger.getSchema().getName(), Schema.class));
+                    preparedStatement.setString(2, trigger.getName());
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        return getSourceBody(resultSet, "", false).getText();
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(getBodySql(trigger.getSchema(), database, trigger))) {
+                return getSourceBody(resultSet, database instanceof OracleDatabase ? "CREATE " : "", false).getText();
             }
-            source.append(line);
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
         }
-        return source.toString();
     }
 }
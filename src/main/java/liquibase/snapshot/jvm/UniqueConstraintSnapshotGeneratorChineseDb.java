@@ -0,0 +1,56 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.UniqueConstraint;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 达梦、人大金仓唯一约束快照：模式被快照时用一次 ALL_CONSTRAINTS / pg_constraint 查询取回全部唯一约束及其列
+ */
+public class UniqueConstraintSnapshotGeneratorChineseDb extends UniqueConstraintSnapshotGenerator {
+
+    @Override
+    public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+        int priority = super.getPriority(objectType, database);
+        if (priority > PRIORITY_NONE && (database instanceof DMDatabase || database instanceof KingBaseDatabase)) {
+            priority += PRIORITY_DATABASE;
+        }
+        return priority;
+    }
+
+    @Override
+    public Class<? extends SnapshotGenerator>[] replaces() {
+        return new Class[]{UniqueConstraintSnapshotGenerator.class};
+    }
+
+    @Override
+    public Class<? extends DatabaseObject>[] addsTo() {
+        return SchemaMetadataCache.withSchema(super.addsTo());
+    }
+
+    @Override
+    protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot) throws DatabaseException {
+        if (foundObject instanceof Schema) {
+            if (snapshot.getSnapshotControl().shouldInclude(UniqueConstraint.class)) {
+                SchemaMetadataCache.prime(snapshot, (Schema) foundObject, SchemaMetadataCache.Type.UNIQUE_CONSTRAINTS);
+            }
+            return;
+        }
+        super.addTo(foundObject, snapshot);
+    }
+
+    @Override
+    protected List<Map<String, ?>> listColumns(UniqueConstraint example, Database database, DatabaseSnapshot snapshot) throws DatabaseException {
+        List<Map<String, ?>> columns = SchemaMetadataCache.getUniqueConstraintColumns(snapshot, example.getSchema(), example.getName());
+        return columns != null ? columns : super.listColumns(example, database, snapshot);
+    }
+}
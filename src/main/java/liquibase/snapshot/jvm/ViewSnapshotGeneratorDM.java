@@ -0,0 +1,160 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.InvalidExampleException;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.View;
+import liquibase.util.StringUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 达梦视图快照：视图列表仍由 JDBC 元数据取得，视图定义和注释改为一次扫描 ALL_VIEWS、ALL_TAB_COMMENTS（或 metadataDdl 模式下的
+ * DBMS_METADATA.GET_DDL）取回整个模式，不再为每个视图执行一次 GetViewDefinitionStatement
+ */
+public class ViewSnapshotGeneratorDM extends ViewSnapshotGenerator {
+
+    // 与 AbstractJdbcDatabase.getViewDefinition 去掉 CREATE ... VIEW ... AS 的规则一致
+    private static final Pattern CREATE_VIEW_AS_PATTERN = Pattern.compile("^CREATE\\s+.*?VIEW\\s+.*?\\s+AS(?:\\s+|(?=\\())", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    @Override
+    public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+        int priority = super.getPriority(objectType, database);
+        if (priority > PRIORITY_NONE && database instanceof DMDatabase) {
+            priority += PRIORITY_DATABASE;
+        }
+        return priority;
+    }
+
+    @Override
+    public Class<? extends SnapshotGenerator>[] replaces() {
+        return new Class[]{ViewSnapshotGenerator.class};
+    }
+
+    @Override
+    protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot) throws DatabaseException, InvalidExampleException {
+        super.addTo(foundObject, snapshot);
+        if (!(foundObject instanceof Schema) || !snapshot.getSnapshotControl().shouldInclude(View.class)) {
+            return;
+        }
+        Schema schema = (Schema) foundObject;
+        Database database = snapshot.getDatabase();
+        if (!(database instanceof DMDatabase) || !(database.getConnection() instanceof JdbcConnection) || schema.getDatabaseObjects(View.class).isEmpty()) {
+            return;
+        }
+        Map<String, ViewSource> sources;
+        try {
+            if (ParallelSnapshotSupport.isEnabled(database) && !DMMetadataDdl.isEnabled(database)) {
+                ParallelSnapshotSupport.schedule(snapshot, schema);
+                sources = ParallelSnapshotSupport.take(snapshot, schema, ParallelSnapshotSupport.VIEW_DEFINITIONS);
+            } else {
+                Connection connection = CatalogConnection.of(database);
+                sources = DMMetadataDdl.isEnabled(database) ? loadMetadataDefinitions(connection, schema.getName()) : loadViewDefinitions(connection, schema.getName());
+            }
+        } catch (SQLException | DatabaseException e) {
+            // 视图定义仍可由 snapshotObject 逐个查询
+            Scope.getCurrentScope().getLog(getClass()).warning("Could not prefetch view definitions for schema " + schema.getName() + ": " + e.getMessage());
+            return;
+        }
+        // 已有定义的视图 snapshotObject 直接返回，不再查询，所以这里要完成核心 snapshotObject 中的处理
+        for (View view : schema.getDatabaseObjects(View.class)) {
+            ViewSource source = sources.get(view.getName());
+            if (view.getDefinition() == null && source != null) {
+                source.applyTo(view);
+            }
+        }
+    }
+
+    /**
+     * 一次读取模式下全部视图定义及注释，返回 视图名 -> 去掉 CREATE VIEW ... AS 之后的查询语句和 ALL_TAB_COMMENTS 中的注释
+     */
+    static Map<String, ViewSource> loadViewDefinitions(Connection connection, String schemaName) throws SQLException {
+        Map<String, ViewSource> sources = new HashMap<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT V.VIEW_NAME, V.TEXT, C.COMMENTS FROM ALL_VIEWS V "
+                + "LEFT JOIN ALL_TAB_COMMENTS C ON C.OWNER = V.OWNER AND C.TABLE_NAME = V.VIEW_NAME WHERE V.OWNER = ?")) {
+            preparedStatement.setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+            preparedStatement.setString(1, schemaName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String text = resultSet.getString("TEXT");
+                    if (text != null) {
+                        sources.put(resultSet.getString("VIEW_NAME"), new ViewSource(toDefinition(text), resultSet.getString("COMMENTS")));
+                    }
+                }
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 与 loadViewDefinitions 相同，定义取自 DBMS_METADATA.GET_DDL
+     */
+    static Map<String, ViewSource> loadMetadataDefinitions(Connection connection, String schemaName) throws SQLException {
+        Map<String, ViewSource> sources = new HashMap<>();
+        StreamingQuery.forEachRow(connection, DMMetadataDdl.getViewSql(), schemaName, resultSet -> {
+            String text = DMMetadataDdl.read(resultSet, true).getText();
+            if (!text.isEmpty()) {
+                sources.put(resultSet.getString("VIEW_NAME"), new ViewSource(toDefinition(text.trim()), resultSet.getString("COMMENTS")));
+            }
+        });
+        return sources;
+    }
+
+    private static String toDefinition(String text) {
+        return StringUtil.standardizeLineEndings(CREATE_VIEW_AS_PATTERN.matcher(text).replaceFirst(""));
+    }
+
+    /**
+     * 预先读取的视图定义和注释
+     */
+    static final class ViewSource {
+
+        private final String definition;
+        private final String remarks;
+
+        ViewSource(String definition, String remarks) {
+            this.definition = definition;
+            this.remarks = remarks;
+        }
+
+        String getDefinition() {
+            return definition;
+        }
+
+        String getRemarks() {
+            return remarks;
+        }
+
+        /**
+         * 与核心 ViewSnapshotGenerator.snapshotObject 相同的处理：去掉末尾的 NUL，空定义记为 [CANNOT READ VIEW DEFINITION]；
+         * 字典中没有注释时保留 JDBC 元数据的 REMARKS，并还原其中转义的单引号
+         */
+        void applyTo(View view) {
+            String text = definition;
+            if (!text.isEmpty() && text.charAt(text.length() - 1) == '\0') {
+                text = text.substring(0, text.length() - 1);
+            }
+            text = StringUtil.trimToNull(text);
+            view.setDefinition(text == null ? "[CANNOT READ VIEW DEFINITION]" : text);
+            if (remarks != null) {
+                view.setRemarks(remarks);
+            } else if (view.getRemarks() != null) {
+                view.setRemarks(view.getRemarks().replace("''", "'"));
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class GetViewDefinitionGeneratorDM extends GetViewDefinitionGenerator {
     public Sql[] generateSql(GetViewDefinitionStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
         CatalogAndSchema schema = new CatalogAndSchema(statement.getCatalogName(), statement.getSchemaName()).customize(database);
 
-        return new Sql[]{new UnparsedSql("SELECT TEXT FROM ALL_VIEWS WHERE upper(VIEW_NAME)='" + statement.getViewName().toUpperCase() + "' AND OWNER='" + schema.getSchemaName() + "'")};
+        // 不对 VIEW_NAME 使用 upper()，以便使用字典索引；视图名来自快照，已是库中的实际大小写
+        return new Sql[]{new UnparsedSql("SELECT TEXT FROM ALL_VIEWS WHERE VIEW_NAME='" + database.escapeStringForDatabase(statement.getViewName()) + "' AND OWNER='" + schema.getSchemaName() + "'")};
     }
 }
@@ -1,11 +1,23 @@
 package liquibase.structure.core;
 
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.resource.ResourceAccessor;
 import liquibase.structure.AbstractDatabaseObject;
 import liquibase.structure.DatabaseObject;
 import liquibase.util.StringUtil;
 
+import java.util.Locale;
+import java.util.Map;
+
 public class Trigger extends AbstractDatabaseObject {
 
+    // 小写、去空白的触发器名和 catalog.schema，用于 equals/hashCode；不是属性，不参与序列化
+    private String canonicalName;
+    private String schemaKey;
+    // 加入快照后固定，之后修改 name、schema 不再改变 equals/hashCode，已放入 HashSet 的对象仍能找到
+    private boolean identityFixed;
+
     public Trigger() {
     }
 
@@ -62,24 +74,80 @@ public class Trigger extends AbstractDatabaseObject {
     }
 
     @Override
-    public boolean equals(Object obj) { //判断两个Trigger是否相等
+    public DatabaseObject setAttribute(String attribute, Object value) {
+        super.setAttribute(attribute, value);
+        if (!identityFixed && ("name".equals(attribute) || "schema".equals(attribute))) {
+            canonicalName = null;
+        }
+        return this;
+    }
+
+    @Override
+    public void load(ParsedNode parsedNode, ResourceAccessor resourceAccessor) throws ParsedNodeException {
+        super.load(parsedNode, resourceAccessor);
+        canonicalName = null;
+    }
+
+    /**
+     * 加入快照时调用：按当前的 name、schema 计算并固定 identity，名称字符串取自快照的规范化表，
+     * 同一快照中相同的名称为同一个实例
+     */
+    public void fixIdentity(Map<String, String> identityKeys) {
+        computeIdentity();
+        canonicalName = intern(identityKeys, canonicalName);
+        schemaKey = schemaKey == null ? null : intern(identityKeys, schemaKey);
+        identityFixed = true;
+    }
+
+    /**
+     * 规范化的 catalog.schema.name，没有 schema 时为 name
+     */
+    public String getIdentityKey() {
+        String name = getCanonicalName();
+        return schemaKey == null ? name : schemaKey + "." + name;
+    }
+
+    /**
+     * 小写、去空白的触发器名，用作比较器的 hash
+     */
+    public String getCanonicalName() {
+        if (canonicalName == null) {
+            computeIdentity();
+        }
+        return canonicalName;
+    }
+
+    // 加载快照时 schema 先是引用字符串，替换为 Schema 对象后才计入 key
+    private void computeIdentity() {
+        Object schema = getAttribute("schema", Object.class);
+        schemaKey = schema instanceof Schema
+                ? (StringUtil.trimToEmpty(((Schema) schema).getCatalogName()) + "." + StringUtil.trimToEmpty(((Schema) schema).getName())).toLowerCase(Locale.US)
+                : null;
+        canonicalName = StringUtil.trimToEmpty(getAttribute("name", String.class)).toLowerCase(Locale.US);
+    }
+
+    private static String intern(Map<String, String> identityKeys, String key) {
+        String existing = identityKeys.putIfAbsent(key, key);
+        return existing != null ? existing : key;
+    }
+
+    @Override
+    public boolean equals(Object obj) { //判断两个Trigger是否相等：名称忽略大小写相同，两者都有 schema 时 catalog、schema 也要相同
         if (this == obj) return true;
         if ((obj == null) || (getClass() != obj.getClass())) return false;
 
         Trigger that = (Trigger) obj;
-
-        if ((this.getSchema() != null) && (that.getSchema() != null)) {
-            boolean schemasEqual = StringUtil.trimToEmpty(this.getSchema().getName()).equalsIgnoreCase(StringUtil.trimToEmpty(that.getSchema().getName()));
-            if (!schemasEqual) {
-                return false;
-            }
+        // 同一快照中的名称是同一实例，String.equals 直接返回
+        if (!this.getCanonicalName().equals(that.getCanonicalName())) {
+            return false;
         }
-        return getName().equalsIgnoreCase(that.getName());
+        return this.schemaKey == null || that.schemaKey == null || this.schemaKey.equals(that.schemaKey);
     }
 
     @Override
     public int hashCode() {
-        return StringUtil.trimToEmpty(this.getName()).toLowerCase().hashCode();
+        // 与核心 StoredDatabaseLogic 相同只按名称计算，没有 schema 的示例对象也能找到
+        return getCanonicalName().hashCode();
     }
 
 }
@@ -0,0 +1,21 @@
+package liquibase.database.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Java 21 版本：每个字典查询一个虚拟线程，等待数据库时不占用平台线程。
+ * 同时使用的连接数仍由 {@link DMConnectionPool} 按 parallelConnections 限制。
+ */
+public final class SnapshotExecutors {
+
+    private SnapshotExecutors() {
+    }
+
+    /**
+     * 创建执行字典查询的线程池，threads 只用于限制连接数，这里不限制线程数
+     */
+    public static ExecutorService newExecutor(String name, int threads) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+}
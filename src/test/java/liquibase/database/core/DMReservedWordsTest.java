@@ -0,0 +1,78 @@
+package liquibase.database.core;
+
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import static org.mockito.Mockito.*;
+
+public class DMReservedWordsTest {
+
+    @Test
+    void testPackagedWordsIgnoreCase() {
+        DMReservedWords words = DMReservedWords.packaged();
+        Assertions.assertTrue(words.contains("ORDER"));
+        Assertions.assertTrue(words.contains("rownum"));
+        Assertions.assertTrue(words.contains("Trigger"));
+        Assertions.assertFalse(words.contains("ORDERS"));
+        Assertions.assertFalse(words.contains("用户表"));
+        Assertions.assertFalse(words.contains(null));
+    }
+
+    @Test
+    void testKeywordsLoadedOncePerVersion() throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDriverName()).thenReturn("DM8 JDBC Driver");
+        when(metaData.getDriverVersion()).thenReturn("8.1.0.0-test");
+        when(metaData.getDatabaseProductVersion()).thenReturn("8.1.0.0-test");
+        when(metaData.getSQLKeywords()).thenReturn("FOO, bar,BAZ");
+
+        DMReservedWords first = DMReservedWords.forMetaData(metaData);
+        DMReservedWords second = DMReservedWords.forMetaData(metaData);
+
+        Assertions.assertSame(first, second);
+        verify(metaData, times(1)).getSQLKeywords();
+        Assertions.assertTrue(first.contains("Bar"));
+        // 驱动不返回的词始终包含
+        Assertions.assertTrue(first.contains("uid"));
+    }
+
+    @Test
+    void testEmptyTokensSkipped() throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDriverName()).thenReturn("DM8 JDBC Driver");
+        when(metaData.getDriverVersion()).thenReturn("8.1.0.0-empty");
+        when(metaData.getDatabaseProductVersion()).thenReturn("8.1.0.0-empty");
+        when(metaData.getSQLKeywords()).thenReturn("FOO,, ,BAR,");
+
+        DMReservedWords words = DMReservedWords.forMetaData(metaData);
+
+        Assertions.assertTrue(words.contains("foo"));
+        Assertions.assertTrue(words.contains("BAR"));
+        Assertions.assertFalse(words.contains(""));
+    }
+
+    @Test
+    void testDriverKeywordsReadOnFirstLookup() throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDriverName()).thenReturn("DM8 JDBC Driver");
+        when(metaData.getDriverVersion()).thenReturn("8.1.0.0-lazy");
+        when(metaData.getDatabaseProductVersion()).thenReturn("8.1.0.0-lazy");
+        when(metaData.getSQLKeywords()).thenReturn("LAZYWORD");
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenThrow(new SQLException("session metadata is not under test"));
+        DMDatabase database = new DMDatabase();
+
+        database.setConnection(new JdbcConnection(connection));
+        verify(metaData, never()).getDriverVersion();
+
+        Assertions.assertTrue(database.isReservedWord("lazyword"));
+        Assertions.assertTrue(database.isReservedWord("ORDER"));
+        verify(metaData, times(1)).getDriverVersion();
+    }
+}
@@ -0,0 +1,52 @@
+package liquibase.database.core;
+
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.statement.core.RawSqlStatement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DMSessionMetadataTest {
+
+    @Test
+    void testSessionPrefetchedAtSetConnection() throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("DM DBMS");
+        when(metaData.getDatabaseMajorVersion()).thenReturn(8);
+        when(metaData.getDatabaseMinorVersion()).thenReturn(1);
+        when(metaData.getSQLKeywords()).thenReturn("");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString(1)).thenReturn("APP");
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenReturn(statement);
+
+        DMDatabase database = new DMDatabase();
+        database.setConnection(new JdbcConnection(connection));
+
+        Assertions.assertEquals("APP", database.getConnectionSchemaName());
+        Assertions.assertEquals(8, database.getDatabaseMajorVersion());
+        Assertions.assertEquals(1, database.getDatabaseMinorVersion());
+        Assertions.assertEquals(8, database.getDatabaseMajorVersion());
+        // 版本和会话信息只在 setConnection 时读取一次
+        verify(metaData, times(1)).getDatabaseMajorVersion();
+        verify(statement, times(1)).executeQuery(anyString());
+    }
+
+    @Test
+    void testSessionChangingStatements() {
+        Assertions.assertTrue(DMSessionMetadata.changesSession(new RawSqlStatement("alter session set current_schema = HIS")));
+        Assertions.assertTrue(DMSessionMetadata.changesSession(new RawSqlStatement("SET SCHEMA HIS;\nCREATE TABLE T (ID INT)")));
+        Assertions.assertFalse(DMSessionMetadata.changesSession(new RawSqlStatement("UPDATE T_SESSION SET SCHEMA_NAME = 'A'")));
+    }
+}
@@ -0,0 +1,113 @@
+package liquibase.diff.compare.core;
+
+import liquibase.Scope;
+import liquibase.diff.ObjectDifferences;
+import liquibase.diff.compare.CompareControl;
+import liquibase.diff.compare.DatabaseObjectComparatorChain;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.jvm.SourceBody;
+import liquibase.structure.core.StoredProcedure;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SourceBodyComparatorTest {
+
+    private DatabaseObjectComparatorChain chain;
+
+    @BeforeEach
+    void setUp() {
+        chain = mock(DatabaseObjectComparatorChain.class);
+        when(chain.findDifferences(any(), any(), any(), any(), anySet())).thenAnswer(invocation -> new ObjectDifferences(new CompareControl()));
+    }
+
+    @Test
+    void testLineEndingsAndTrailingWhitespaceIgnored() {
+        StoredProcedure reference = procedure("CREATE PROCEDURE P AS\r\nBEGIN  \r\n  NULL;\t\r\nEND;\r\n\r\n");
+        StoredProcedure comparison = procedure("CREATE PROCEDURE P AS\nBEGIN\n  NULL;\nEND;");
+
+        Assertions.assertFalse(compare(reference, comparison).isDifferent("body"));
+        // 摘要不写回对象，完整模式快照序列化时不带 bodyDigest
+        Assertions.assertNull(reference.getAttribute(SourceBody.DIGEST_ATTRIBUTE, String.class));
+    }
+
+    @Test
+    void testChangedBodyDetected() {
+        StoredProcedure reference = procedure("CREATE PROCEDURE P AS\nBEGIN\n  NULL;\nEND;");
+        StoredProcedure comparison = procedure("CREATE PROCEDURE P AS\nBEGIN\n  COMMIT;\nEND;");
+
+        ObjectDifferences differences = compare(reference, comparison);
+        Assertions.assertTrue(differences.isDifferent("body"));
+        SourceBodyComparator.BodyDescription description = (SourceBodyComparator.BodyDescription) differences.getDifference("body").getReferenceValue();
+        Assertions.assertEquals("sha256:" + SourceBodyComparator.getDigest(reference) + " (" + reference.getBody().length() + " chars)", description.toString());
+        Assertions.assertEquals(reference.getBody(), description.getText());
+    }
+
+    @Test
+    void testMetadataDdlHeaderMatchesSourceInOtherSchema() {
+        // DBMS_METADATA.GET_DDL 生成带模式限定的语句头，DBA_SOURCE 为用户写的原文
+        StoredProcedure metadataDdl = procedure("CREATE OR REPLACE PROCEDURE \"APP\".\"P\" AS\nBEGIN NULL; END;");
+        StoredProcedure source = procedure("create procedure p AS\nBEGIN NULL; END;");
+        StoredProcedure otherSchema = procedure("CREATE OR REPLACE PROCEDURE APP_TEST.P AS\nBEGIN NULL; END;");
+        StoredProcedure otherName = procedure("CREATE OR REPLACE PROCEDURE \"APP\".\"p\" AS\nBEGIN NULL; END;");
+
+        Assertions.assertFalse(compare(metadataDdl, source).isDifferent("body"));
+        Assertions.assertFalse(compare(metadataDdl, otherSchema).isDifferent("body"));
+        Assertions.assertTrue(compare(metadataDdl, otherName).isDifferent("body"));
+    }
+
+    @Test
+    void testCommentsIgnoredWhenConfigured() throws Exception {
+        StoredProcedure reference = procedure("CREATE PROCEDURE P AS -- 注释\nBEGIN /* 块\n注释 */ NULL; END;");
+        StoredProcedure comparison = procedure("CREATE PROCEDURE P AS\nBEGIN NULL; END;");
+        StoredProcedure quoted = procedure("CREATE PROCEDURE P AS\nBEGIN PRINT '-- 不是注释'; END;");
+        StoredProcedure quotedComparison = procedure("CREATE PROCEDURE P AS\nBEGIN PRINT ''; END;");
+
+        AtomicBoolean commentsDifferent = new AtomicBoolean();
+        AtomicBoolean quotedDifferent = new AtomicBoolean();
+        Scope.child(Collections.singletonMap(ChineseDbSnapshotConfiguration.BODY_STRIP_COMMENTS.getKey(), true), () -> {
+            commentsDifferent.set(compare(reference, comparison).isDifferent("body"));
+            quotedDifferent.set(compare(quoted, quotedComparison).isDifferent("body"));
+        });
+
+        Assertions.assertFalse(commentsDifferent.get());
+        Assertions.assertTrue(quotedDifferent.get());
+    }
+
+    @Test
+    void testDigestOnlySnapshotComparedWithoutText() {
+        StoredProcedure reference = procedure("CREATE PROCEDURE P AS\nBEGIN NULL; END;");
+        StoredProcedure comparison = new StoredProcedure();
+        comparison.setName("P");
+        comparison.setAttribute(SourceBody.DIGEST_ATTRIBUTE, SourceBodyComparator.getDigest(procedure("CREATE PROCEDURE P AS  \r\nBEGIN NULL; END;")));
+
+        Assertions.assertFalse(compare(reference, comparison).isDifferent("body"));
+    }
+
+    @Test
+    void testProcedureHashIsLowerCaseName() {
+        StoredProcedure procedure = procedure("CREATE PROCEDURE P AS BEGIN NULL; END;");
+        procedure.setName("P_AUDIT");
+
+        Assertions.assertArrayEquals(new String[]{"p_audit"}, new SourceBodyComparator().hash(procedure, null, chain));
+    }
+
+    private ObjectDifferences compare(StoredProcedure reference, StoredProcedure comparison) {
+        return new SourceBodyComparator().findDifferences(reference, comparison, null, new CompareControl(), chain, Collections.emptySet());
+    }
+
+    private StoredProcedure procedure(String body) {
+        StoredProcedure procedure = new StoredProcedure();
+        procedure.setName("P");
+        procedure.setBody(body);
+        return procedure;
+    }
+}
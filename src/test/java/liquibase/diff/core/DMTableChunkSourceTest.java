@@ -0,0 +1,74 @@
+package liquibase.diff.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DMTableChunkSourceTest {
+
+    @Test
+    void testRowHashUsesFixedFormatsAndSkipsBinaryColumns() {
+        DMTableChunkSource source = new DMTableChunkSource(mock(Connection.class), "APP", "T_FILE", "ID", columns());
+
+        Assertions.assertEquals("MOD(NVL(ORA_HASH(TO_CHAR(\"ID\", 'TM9', 'NLS_NUMERIC_CHARACTERS=''.,'''), 4294967295, 1), 4294967296)"
+                        + " + NVL(ORA_HASH(TO_CHAR(\"NAME\"), 4294967295, 2), 4294967296)"
+                        + " + NVL(ORA_HASH(TO_CHAR(\"CREATED\", 'YYYY-MM-DD HH24:MI:SS.FF6'), 4294967295, 3), 4294967296), 4294967296)",
+                source.rowHash());
+    }
+
+    @Test
+    void testLobColumnsHashedWithDbmsLob() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("ID", "INT");
+        columns.put("NOTE", "CLOB");
+        DMTableChunkSource source = new DMTableChunkSource(mock(Connection.class), "APP", "T_NOTE", "ID", columns);
+
+        String rowHash = source.rowHash();
+        Assertions.assertTrue(rowHash.contains("NVL(DBMS_LOB.GETLENGTH(\"NOTE\")"
+                + " + ORA_HASH(DBMS_LOB.SUBSTR(\"NOTE\", 1000, 1), 4294967295, 2)"
+                + " + ORA_HASH(DBMS_LOB.SUBSTR(\"NOTE\", 1000, GREATEST(DBMS_LOB.GETLENGTH(\"NOTE\") - 999, 1)), 4294967295, 2), 4294967296)"), rowHash);
+        Assertions.assertFalse(rowHash.contains("TO_CHAR(\"NOTE\")"), rowHash);
+    }
+
+    @Test
+    void testRowsKeepBinaryColumns() throws Exception {
+        Blob blob = mock(Blob.class);
+        when(blob.length()).thenReturn(2L);
+        when(blob.getBytes(1, 2)).thenReturn(new byte[]{1, 2});
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getObject(1)).thenReturn(1L);
+        when(resultSet.getObject(2)).thenReturn("A");
+        when(resultSet.getObject(3)).thenReturn(null);
+        when(resultSet.getObject(4)).thenReturn(blob);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        List<Map<String, Object>> rows = new DMTableChunkSource(connection, "APP", "T_FILE", "ID", columns()).rows(null, null);
+
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertArrayEquals(new byte[]{1, 2}, (byte[]) rows.get(0).get("CONTENT"));
+    }
+
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("ID", "NUMBER");
+        columns.put("NAME", "VARCHAR2");
+        columns.put("CREATED", "TIMESTAMP(6)");
+        columns.put("CONTENT", "BLOB");
+        return columns;
+    }
+}
@@ -0,0 +1,64 @@
+package liquibase.diff.core;
+
+import liquibase.change.core.LoadDataChange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DMTableDataExporterTest {
+
+    @Test
+    void testPagesByLastKey() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement first = page(new Object[][]{{1L, "A"}, {2L, "B"}});
+        PreparedStatement second = page(new Object[][]{{3L, null}});
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(first, second);
+
+        DMTableDataExporter exporter = new DMTableDataExporter(connection, "APP", "T_CODE", "ID", 2, 100);
+        StringWriter out = new StringWriter();
+        Assertions.assertEquals(3, exporter.export(out));
+
+        Assertions.assertEquals("\"ID\",\"NAME\"\n\"1\",\"A\"\n\"2\",\"B\"\n\"3\",\"NULL\"\n", out.toString());
+        Assertions.assertEquals(LoadDataChange.LOAD_DATA_TYPE.NUMERIC, exporter.getColumns().get(0).getTypeEnum());
+        Assertions.assertEquals(LoadDataChange.LOAD_DATA_TYPE.STRING, exporter.getColumns().get(1).getTypeEnum());
+
+        // 第二页从上一页最后的主键之后开始，不足一页后不再查询
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection, times(2)).prepareStatement(sql.capture(), anyInt(), anyInt());
+        Assertions.assertEquals("SELECT TOP 2 * FROM \"APP\".\"T_CODE\" ORDER BY \"ID\"", sql.getAllValues().get(0));
+        Assertions.assertEquals("SELECT TOP 2 * FROM \"APP\".\"T_CODE\" WHERE \"ID\" > ? ORDER BY \"ID\"", sql.getAllValues().get(1));
+        verify(second).setObject(1, 2L);
+        verify(first).setFetchSize(100);
+    }
+
+    private static PreparedStatement page(Object[][] rows) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnName(1)).thenReturn("ID");
+        when(metaData.getColumnName(2)).thenReturn("NAME");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.findColumn("ID")).thenReturn(1);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> rows[row[0]][(Integer) invocation.getArgument(0) - 1]);
+
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        return preparedStatement;
+    }
+}
@@ -0,0 +1,119 @@
+package liquibase.diff.core;
+
+import liquibase.change.Change;
+import liquibase.change.core.DeleteDataChange;
+import liquibase.change.core.InsertDataChange;
+import liquibase.change.core.UpdateDataChange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class TableDataComparatorTest {
+
+    private static final int ROWS = 100_000;
+
+    @Test
+    void testOnlyMismatchingChunksAreFetched() throws Exception {
+        MemorySource reference = new MemorySource();
+        MemorySource target = new MemorySource();
+        for (int id = 1; id <= ROWS; id++) {
+            reference.put(id, "NAME" + id);
+            target.put(id, "NAME" + id);
+        }
+        reference.put(ROWS + 1, "NEW");
+        target.put(50_000, "CHANGED");
+        target.rows.remove(70_000);
+        // 目标表中主键 3 的数值写法不同，值相同
+        target.rows.get(3).put("AMOUNT", new BigDecimal("3.00"));
+        target.put(-1, "EXTRA");
+
+        TableDataComparator comparator = new TableDataComparator(reference, target, "ID");
+        List<Change> changes = comparator.compare("APP", "T_CONFIG");
+
+        Assertions.assertEquals(4, changes.size());
+        Assertions.assertTrue(changes.get(0) instanceof DeleteDataChange);
+        Assertions.assertEquals(-1, ((DeleteDataChange) changes.get(0)).getWhereParams().get(0).getValueNumeric().intValue());
+
+        UpdateDataChange update = (UpdateDataChange) changes.get(1);
+        Assertions.assertEquals("APP", update.getSchemaName());
+        Assertions.assertEquals(1, update.getColumns().size());
+        Assertions.assertEquals("NAME50000", update.getColumns().get(0).getValue());
+        Assertions.assertEquals(50_000, update.getWhereParams().get(0).getValueNumeric().intValue());
+
+        Assertions.assertEquals(70_000, ((InsertDataChange) changes.get(2)).getColumns().get(0).getValueNumeric().intValue());
+        Assertions.assertEquals(ROWS + 1, ((InsertDataChange) changes.get(3)).getColumns().get(0).getValueNumeric().intValue());
+
+        // 只取回包含差异的小区间
+        Assertions.assertTrue(comparator.getRowsFetched() < 8L * TableDataComparator.ROW_THRESHOLD, "fetched " + comparator.getRowsFetched());
+    }
+
+    @Test
+    void testEqualTablesCompareOneChunk() throws Exception {
+        MemorySource reference = new MemorySource();
+        MemorySource target = new MemorySource();
+        for (int id = 1; id <= 1000; id++) {
+            reference.put(id, "NAME" + id);
+            target.put(id, "NAME" + id);
+        }
+        TableDataComparator comparator = new TableDataComparator(reference, target, "ID");
+        Assertions.assertTrue(comparator.compare("APP", "T_CONFIG").isEmpty());
+        Assertions.assertEquals(1, comparator.getChunksCompared());
+        Assertions.assertEquals(0, comparator.getRowsFetched());
+    }
+
+    private static final class MemorySource implements TableDataComparator.ChunkSource {
+        private final TreeMap<Integer, Map<String, Object>> rows = new TreeMap<>();
+
+        private void put(int id, String name) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("ID", id);
+            row.put("NAME", name);
+            row.put("AMOUNT", new BigDecimal(Math.abs(id)));
+            rows.put(id, row);
+        }
+
+        private NavigableMap<Integer, Map<String, Object>> range(Object from, Object to) {
+            NavigableMap<Integer, Map<String, Object>> range = rows;
+            if (from != null) {
+                range = range.tailMap((Integer) from, true);
+            }
+            if (to != null) {
+                range = range.headMap((Integer) to, false);
+            }
+            return range;
+        }
+
+        @Override
+        public TableDataComparator.ChunkHash hash(Object from, Object to) {
+            long hash = 0;
+            for (Map<String, Object> row : range(from, to).values()) {
+                hash += (row.get("ID") + "|" + row.get("NAME") + "|" + ((BigDecimal) row.get("AMOUNT")).stripTrailingZeros().toPlainString()).hashCode();
+            }
+            return new TableDataComparator.ChunkHash(range(from, to).size(), hash);
+        }
+
+        @Override
+        public List<Object> splitKeys(Object from, Object to, long step) {
+            List<Object> keys = new ArrayList<>();
+            long index = 0;
+            for (Integer key : range(from, to).keySet()) {
+                if (++index % step == 0) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        }
+
+        @Override
+        public List<Map<String, Object>> rows(Object from, Object to) {
+            return new ArrayList<>(range(from, to).values());
+        }
+    }
+}
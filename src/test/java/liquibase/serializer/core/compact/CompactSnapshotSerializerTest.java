@@ -0,0 +1,87 @@
+package liquibase.serializer.core.compact;
+
+import liquibase.parser.core.compact.CompactSnapshotParser;
+import liquibase.parser.core.yaml.YamlSnapshotParser;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Trigger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CompactSnapshotSerializerTest {
+
+    private static final String BODY = "CREATE OR REPLACE PROCEDURE P_CALC AS\nBEGIN\n  UPDATE ORDERS SET TOTAL = 0;\nEND;";
+
+    private static final String JSON = "{\"snapshot\": {\n"
+            + "  \"created\": \"2024-01-01T00:00:00.000\",\n"
+            + "  \"database\": {\"shortName\": \"dm\", \"productName\": \"DM DBMS\", \"url\": \"jdbc:dm://base:5236\", \"majorVersion\": \"8\", \"minorVersion\": \"1\", \"productVersion\": \"8.1\", \"user\": \"SYSDBA\"},\n"
+            + "  \"objects\": {\n"
+            + "    \"liquibase.structure.core.Catalog\": [{\"catalog\": {\"name\": \"BASE\", \"snapshotId\": \"c1\"}}],\n"
+            + "    \"liquibase.structure.core.Schema\": [{\"schema\": {\"name\": \"APP\", \"snapshotId\": \"s1\", \"catalog\": \"liquibase.structure.core.Catalog#c1\"}}],\n"
+            + "    \"liquibase.structure.core.StoredProcedure\": [{\"storedProcedure\": {\"name\": \"P_CALC\", \"snapshotId\": \"p1\", \"schema\": \"liquibase.structure.core.Schema#s1\", \"order\": \"3!{java.lang.Long}\", \"body\": \"" + BODY.replace("\n", "\\n") + "\"}}],\n"
+            + "    \"liquibase.structure.core.Trigger\": [{\"trigger\": {\"name\": \"TRG_A\", \"snapshotId\": \"t1\", \"schema\": \"liquibase.structure.core.Schema#s1\", \"body\": \"CREATE TRIGGER TRG_A BEGIN NULL; END;\"}}]\n"
+            + "  }\n"
+            + "}}";
+
+    @Test
+    void testRoundTripThroughFileAndBase64(@TempDir Path directory) throws Exception {
+        Files.write(directory.resolve("baseline.json"), JSON.getBytes(StandardCharsets.UTF_8));
+        ResourceAccessor resourceAccessor = new DirectoryResourceAccessor(directory);
+        DatabaseSnapshot original = new YamlSnapshotParser().parse("baseline.json", resourceAccessor);
+
+        CompactSnapshotSerializer serializer = new CompactSnapshotSerializer();
+        try (OutputStream out = Files.newOutputStream(directory.resolve("baseline.csnap"))) {
+            serializer.write(original, out);
+        }
+        // snapshot 命令输出的文本形式
+        Files.write(directory.resolve("text.csnap"), serializer.serialize(original, true).getBytes(StandardCharsets.UTF_8));
+
+        CompactSnapshotParser parser = new CompactSnapshotParser();
+        Assertions.assertTrue(parser.supports("baseline.csnap", resourceAccessor));
+        for (String path : Arrays.asList("baseline.csnap", "text.csnap")) {
+            DatabaseSnapshot restored = parser.parse(path, resourceAccessor);
+            Assertions.assertEquals("dm", restored.getDatabase().getShortName());
+
+            StoredProcedure procedure = restored.get(StoredProcedure.class).iterator().next();
+            Assertions.assertEquals(BODY, procedure.getBody());
+            Assertions.assertEquals(3L, procedure.getAttribute("order", Long.class));
+            Assertions.assertEquals("APP", procedure.getSchema().getName());
+
+            Trigger trigger = restored.get(Trigger.class).iterator().next();
+            Assertions.assertEquals("TRG_A", trigger.getName());
+            Assertions.assertEquals("CREATE TRIGGER TRG_A BEGIN NULL; END;", trigger.getBody());
+            Assertions.assertSame(restored.get(Schema.class).iterator().next(), trigger.getSchema());
+        }
+    }
+
+    @Test
+    void testRepeatedStringsAreWrittenOnce() throws Exception {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add(Collections.singletonMap("schema", "liquibase.structure.core.Schema#1234567890"));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompactSnapshotFormat.write(Collections.singletonMap("objects", objects), bytes);
+
+        // 每个对象只写类型标记、大小和两个字符串编号，不重复写全文
+        Assertions.assertTrue(bytes.size() < 1000 * 8, "size " + bytes.size());
+        Object restored = CompactSnapshotFormat.read(new ByteArrayInputStream(bytes.toByteArray()));
+        Assertions.assertEquals(objects, ((Map<?, ?>) restored).get("objects"));
+    }
+}
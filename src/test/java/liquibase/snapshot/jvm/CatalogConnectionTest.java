@@ -0,0 +1,158 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CatalogConnectionTest {
+
+    private DMDatabase database;
+    private Connection primary;
+
+    @BeforeEach
+    void setUp() {
+        primary = mock(Connection.class);
+        database = database("jdbc:dm://primary:5236", primary);
+        ReplicaDriver.connection = mock(Connection.class);
+        ReplicaDriver.url = null;
+    }
+
+    private static DMDatabase database(String url, Connection wrapped) {
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(wrapped);
+        when(jdbcConnection.getURL()).thenReturn(url);
+        when(jdbcConnection.getConnectionUserName()).thenReturn("SYSDBA");
+        DMDatabase database = spy(new DMDatabase());
+        doReturn(jdbcConnection).when(database).getConnection();
+        doReturn(ReplicaDriver.class.getName()).when(database).getDefaultDriver(anyString());
+        return database;
+    }
+
+    @Test
+    void testPrimaryConnectionWithoutReadUrl() throws Exception {
+        Assertions.assertSame(primary, CatalogConnection.of(database));
+        Assertions.assertNull(ReplicaDriver.url);
+    }
+
+    @Test
+    void testDictionaryQueriesRouteToReplica() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ChineseDbSnapshotConfiguration.READ_URL.getKey(), "jdbc:dm://replica:5236");
+        config.put(ChineseDbSnapshotConfiguration.READ_URL_PRIMARY.getKey(), "jdbc:dm://primary:5236");
+        config.put(ChineseDbSnapshotConfiguration.USERNAME.getKey(), "READER");
+        config.put(ChineseDbSnapshotConfiguration.PASSWORD.getKey(), "secret");
+        Scope.child(config, () -> {
+            Connection connection = CatalogConnection.of(database);
+            Assertions.assertSame(ReplicaDriver.connection, connection);
+            // 同一个 Database 只打开一次
+            Assertions.assertSame(connection, CatalogConnection.of(database));
+        });
+
+        Assertions.assertEquals("jdbc:dm://replica:5236", ReplicaDriver.url);
+        Assertions.assertEquals("READER", ReplicaDriver.properties.getProperty("user"));
+        verify(ReplicaDriver.connection).setReadOnly(true);
+        verifyNoInteractions(primary);
+
+        database.close();
+        verify(ReplicaDriver.connection).close();
+    }
+
+    @Test
+    void testReplicaBelongsToItsPrimary() throws Exception {
+        // 比较时参照库与目标库同时存在，readUrl 只属于目标库
+        Connection referencePrimary = mock(Connection.class);
+        DMDatabase reference = database("jdbc:dm://reference:5236", referencePrimary);
+        Map<String, Object> config = new HashMap<>();
+        config.put(ChineseDbSnapshotConfiguration.READ_URL.getKey(), "jdbc:dm://replica:5236");
+        config.put(ChineseDbSnapshotConfiguration.READ_URL_PRIMARY.getKey(), "jdbc:dm://primary:5236");
+        Scope.child(config, () -> {
+            Assertions.assertEquals("jdbc:dm://replica:5236", database.getReadUrl());
+            Assertions.assertNull(reference.getReadUrl());
+            Assertions.assertSame(ReplicaDriver.connection, CatalogConnection.of(database));
+            Assertions.assertSame(referencePrimary, CatalogConnection.of(reference));
+        });
+    }
+
+    @Test
+    void testEachSideUsesItsOwnReplica() throws Exception {
+        DMDatabase reference = database("jdbc:dm://reference:5236", mock(Connection.class));
+        Map<String, Object> config = new HashMap<>();
+        config.put(ChineseDbSnapshotConfiguration.READ_URL.getKey(), "jdbc:dm://replica:5236");
+        config.put(ChineseDbSnapshotConfiguration.READ_URL_PRIMARY.getKey(), "jdbc:dm://primary:5236");
+        config.put(ChineseDbSnapshotConfiguration.REFERENCE_READ_URL.getKey(), "jdbc:dm://reference-replica:5236");
+        config.put(ChineseDbSnapshotConfiguration.REFERENCE_READ_URL_PRIMARY.getKey(), "jdbc:dm://reference:5236");
+        Scope.child(config, () -> {
+            Assertions.assertEquals("jdbc:dm://replica:5236", database.getReadUrl());
+            Assertions.assertEquals("jdbc:dm://reference-replica:5236", reference.getReadUrl());
+            CatalogConnection.of(reference);
+            Assertions.assertEquals("jdbc:dm://reference-replica:5236", ReplicaDriver.url);
+        });
+    }
+
+    @Test
+    void testReadUrlWithoutMatchingPrimaryIsIgnored() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ChineseDbSnapshotConfiguration.READ_URL.getKey(), "jdbc:dm://replica:5236");
+        config.put(ChineseDbSnapshotConfiguration.READ_URL_PRIMARY.getKey(), "jdbc:dm://other:5236");
+        Scope.child(config, () -> Assertions.assertSame(primary, CatalogConnection.of(database)));
+        Assertions.assertNull(ReplicaDriver.url);
+    }
+
+    public static class ReplicaDriver implements Driver {
+        static Connection connection;
+        static String url;
+        static Properties properties;
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            ReplicaDriver.url = url;
+            ReplicaDriver.properties = info;
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return true;
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.serializer.core.json.JsonSnapshotSerializerChineseDb;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.structure.core.Trigger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+public class CompressedBodyTest {
+
+    private static final String BODY = "CREATE OR REPLACE TRIGGER TRG_AUDIT AFTER INSERT ON ORDERS FOR EACH ROW\nBEGIN\n  INSERT INTO AUDIT_LOG VALUES (:NEW.ID, SYSDATE);\nEND;";
+
+    @Test
+    void testIdenticalBodiesShareOneInstance() {
+        CompressedBody first = CompressedBody.of(BODY);
+        CompressedBody second = CompressedBody.of(new String(BODY.toCharArray()));
+        Assertions.assertSame(first, second);
+        Assertions.assertNotSame(first, CompressedBody.of(BODY + " "));
+        Assertions.assertEquals(BODY, first.inflate());
+        Assertions.assertEquals("过程 / 触发器", CompressedBody.of("过程 / 触发器").inflate());
+    }
+
+    @Test
+    void testCompressedModeKeepsDigestAndInflatesOnRead() throws Exception {
+        Trigger trigger = new Trigger().setName("TRG_AUDIT");
+        trigger.setSnapshotId("t1");
+        Scope.child(Collections.singletonMap(ChineseDbSnapshotConfiguration.BODY_MODE.getKey(), ChineseDbSnapshotConfiguration.BodyMode.COMPRESSED),
+                () -> new SourceBodyBuilder(false, 0).append(BODY).build().applyTo(trigger));
+
+        Assertions.assertNull(trigger.getBody());
+        Assertions.assertTrue(SourceBody.isLoaded(trigger));
+        Assertions.assertEquals(SourceBodyNormalizer.digest(BODY), trigger.getAttribute(SourceBody.DIGEST_ATTRIBUTE, String.class));
+        Assertions.assertEquals(BODY, SourceBody.readText(trigger));
+
+        // 序列化输出全文，不输出压缩对象
+        String json = new JsonSnapshotSerializerChineseDb().serialize(trigger, true);
+        Assertions.assertTrue(json.contains("\"body\": \"CREATE OR REPLACE TRIGGER TRG_AUDIT"), json);
+        Assertions.assertFalse(json.contains(SourceBody.COMPRESSED_ATTRIBUTE), json);
+    }
+}
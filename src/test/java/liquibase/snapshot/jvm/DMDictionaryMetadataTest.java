@@ -0,0 +1,164 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.core.DMDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.CachedRow;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.ResultSetCache;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.Schema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DMDictionaryMetadataTest {
+
+    private static final String[] COLUMN_LABELS = {"TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "ORDINAL_POSITION", "TYPE_NAME",
+            "COLUMN_SIZE", "DECIMAL_DIGITS", "DATA_LENGTH", "NULLABLE", "COLUMN_DEF", "REMARKS", "IS_AUTOINCREMENT"};
+
+    private static final Object[][] COLUMN_ROWS = {
+            {"APP", "ORDERS", "ID", 1, "BIGINT", 19, 0, 8, 0, null, null, "YES"},
+            {"APP", "ORDERS", "CREATED", 2, "TIMESTAMP(6)", 26, 6, 8, 1, "SYSDATE ", "创建时间", "NO"},
+            {"APP", "USERS", "NAME", 1, "VARCHAR", 50, null, 200, 1, "'x'", null, "NO"},
+    };
+
+    @Test
+    void testColumnsUseJdbcMetadataShape() throws Exception {
+        Connection connection = mockConnection();
+
+        List<Map<String, Object>> rows = DMDictionaryMetadata.load(connection, "APP", SchemaMetadataCache.Type.COLUMNS);
+
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(Types.BIGINT, rows.get(0).get("DATA_TYPE"));
+        Assertions.assertEquals(10, rows.get(0).get("NUM_PREC_RADIX"));
+        Assertions.assertEquals("TIMESTAMP", rows.get(1).get("TYPE_NAME"));
+        Assertions.assertEquals(Types.TIMESTAMP, rows.get(1).get("DATA_TYPE"));
+        Assertions.assertEquals("SYSDATE", rows.get(1).get("COLUMN_DEF"));
+        Assertions.assertEquals(Types.VARCHAR, rows.get(2).get("DATA_TYPE"));
+        Assertions.assertEquals(200, rows.get(2).get("CHAR_OCTET_LENGTH"));
+        Assertions.assertFalse(rows.get(2).containsKey("DATA_LENGTH"));
+    }
+
+    @Test
+    void testForeignKeyRules() throws Exception {
+        String[] labels = {"FK_NAME", "UPDATE_RULE", "DELETE_RULE", "DELETE_RULE_NAME"};
+        Object[][] foreignKeys = {
+                {"FK_CASCADE", 0, 0, "CASCADE"},
+                {"FK_RESTRICT", "RESTRICT", "RESTRICT", "NO ACTION"},
+                {"FK_SET_NULL", "SET NULL", 2, "SET NULL"},
+                {"FK_NO_ACTION", 3, "NO ACTION", "NO ACTION"},
+                {"FK_SET_DEFAULT", "SET DEFAULT", "SET DEFAULT", "SET DEFAULT"},
+                // 读不到 SYSCONS 时删除规则取自 ALL_CONSTRAINTS
+                {"FK_NO_SYSCONS", null, null, "SET NULL"},
+        };
+        Connection connection = mockConnection(labels, foreignKeys);
+
+        List<Map<String, Object>> rows = DMDictionaryMetadata.load(connection, "APP", SchemaMetadataCache.Type.FOREIGN_KEYS);
+
+        int[][] expected = {
+                {DatabaseMetaData.importedKeyCascade, DatabaseMetaData.importedKeyCascade},
+                {DatabaseMetaData.importedKeyRestrict, DatabaseMetaData.importedKeyRestrict},
+                {DatabaseMetaData.importedKeySetNull, DatabaseMetaData.importedKeySetNull},
+                {DatabaseMetaData.importedKeyNoAction, DatabaseMetaData.importedKeyNoAction},
+                {DatabaseMetaData.importedKeySetDefault, DatabaseMetaData.importedKeySetDefault},
+                {DatabaseMetaData.importedKeyNoAction, DatabaseMetaData.importedKeySetNull},
+        };
+        for (int i = 0; i < expected.length; i++) {
+            Map<String, Object> row = rows.get(i);
+            Assertions.assertEquals(expected[i][0], row.get("UPDATE_RULE"), row.get("FK_NAME") + " update rule");
+            Assertions.assertEquals(expected[i][1], row.get("DELETE_RULE"), row.get("FK_NAME") + " delete rule");
+            Assertions.assertFalse(row.containsKey("DELETE_RULE_NAME"));
+        }
+    }
+
+    @Test
+    void testSchemaColumnsAreCachedWithOneQuery() throws Exception {
+        Connection connection = mockConnection();
+        DMDatabase database = spy(new DMDatabase());
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        doReturn(jdbcConnection).when(database).getConnection();
+
+        SnapshotControl snapshotControl = mock(SnapshotControl.class);
+        when(snapshotControl.shouldInclude(Column.class)).thenReturn(true);
+        DatabaseSnapshot snapshot = mock(DatabaseSnapshot.class);
+        when(snapshot.getDatabase()).thenReturn(database);
+        when(snapshot.getSnapshotControl()).thenReturn(snapshotControl);
+        ResultSetCache resultSetCache = new ResultSetCache();
+        when(snapshot.getResultSetCache("getColumns")).thenReturn(resultSetCache);
+
+        new ColumnSnapshotGeneratorChineseDb().addTo(new Schema((String) null, "APP"), snapshot);
+
+        // 与 CachingDatabaseMetaData.getColumns 相同的键
+        Assertions.assertEquals(2, lookup(resultSetCache, database, "ORDERS").size());
+        List<CachedRow> users = lookup(resultSetCache, database, "USERS");
+        Assertions.assertEquals(1, users.size());
+        Assertions.assertEquals("NAME", users.get(0).getString("COLUMN_NAME"));
+        Assertions.assertTrue(lookup(resultSetCache, database, "MISSING").isEmpty());
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    private static List<CachedRow> lookup(ResultSetCache resultSetCache, DMDatabase database, String tableName) throws Exception {
+        return resultSetCache.get(new ResultSetCache.ResultSetExtractor(database) {
+            @Override
+            public boolean bulkContainsSchema(String schemaKey) {
+                return false;
+            }
+
+            @Override
+            public ResultSetCache.RowData rowKeyParameters(CachedRow row) {
+                throw new AssertionError("Rows must already be cached");
+            }
+
+            @Override
+            public ResultSetCache.RowData wantedKeyParameters() {
+                return new ResultSetCache.RowData(null, "APP", database, tableName, null) {
+                };
+            }
+
+            @Override
+            public List<CachedRow> fastFetch() {
+                throw new AssertionError("Rows must already be cached");
+            }
+
+            @Override
+            public List<CachedRow> bulkFetch() {
+                return Collections.emptyList();
+            }
+        });
+    }
+
+    private static Connection mockConnection() throws Exception {
+        return mockConnection(COLUMN_LABELS, COLUMN_ROWS);
+    }
+
+    private static Connection mockConnection(String[] labels, Object[][] rows) throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(labels.length);
+        when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> labels[(int) invocation.getArgument(0) - 1]);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> rows[row[0]][(int) invocation.getArgument(0) - 1]);
+        return connection;
+    }
+}
@@ -0,0 +1,32 @@
+package liquibase.snapshot.jvm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class DependencyOrderTest {
+
+    @Test
+    void testDependenciesFirstAndCyclesGrouped() {
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        // A 调用 Z；B、C 互相调用且调用 A；OTHER.X 不在本模式
+        dependencies.put("A", new HashSet<>(Arrays.asList("Z", "X")));
+        dependencies.put("B", new HashSet<>(Arrays.asList("C", "A")));
+        dependencies.put("C", Collections.singleton("B"));
+
+        Map<String, Long> ranks = DependencyOrder.rank(Arrays.asList("C", "B", "A", "Z", "D"), dependencies);
+
+        Assertions.assertTrue(ranks.get("Z") < ranks.get("A"));
+        Assertions.assertTrue(ranks.get("A") < ranks.get("B"));
+        Assertions.assertEquals(ranks.get("B"), ranks.get("C"));
+        // 没有依赖关系的对象按名称顺序
+        Assertions.assertTrue(ranks.get("D") < ranks.get("Z"));
+        Assertions.assertEquals(5, ranks.size());
+    }
+}
@@ -0,0 +1,33 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.structure.core.StoredProcedure;
+import liquibase.structure.core.Trigger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DictionaryNameFilterTest {
+
+    @Test
+    void testToLike() {
+        Assertions.assertEquals("'APP!_%' ESCAPE '!'", DictionaryNameFilter.toLike("APP_.*"));
+        Assertions.assertEquals("'P!_ORDER' ESCAPE '!'", DictionaryNameFilter.toLike("P_ORDER"));
+        Assertions.assertEquals("'A.B_%' ESCAPE '!'", DictionaryNameFilter.toLike("A\\.B.+"));
+        Assertions.assertEquals("'IT''S' ESCAPE '!'", DictionaryNameFilter.toLike("IT'S"));
+        // 无法等价转换的表达式不下推
+        Assertions.assertNull(DictionaryNameFilter.toLike("APP_[0-9]+"));
+        Assertions.assertNull(DictionaryNameFilter.toLike("A|B"));
+        Assertions.assertNull(DictionaryNameFilter.toLike("\\w+"));
+    }
+
+    @Test
+    void testPredicates() {
+        Assertions.assertEquals("", DictionaryNameFilter.predicates(StoredProcedure.class, "NAME", null, null));
+        Assertions.assertEquals("\tAND (NAME LIKE 'APP!_%' ESCAPE '!' OR NAME LIKE 'CORE!_%' ESCAPE '!')\n",
+                DictionaryNameFilter.predicates(StoredProcedure.class, "NAME", "APP_.*, storedprocedure:CORE_.*, table:X.*", null));
+        // 包含条件只针对其他类型时，过滤器排除该类型的全部对象
+        Assertions.assertEquals("\tAND 1 = 0\n", DictionaryNameFilter.predicates(Trigger.class, "NAME", "table:APP_.*", null));
+        // 任一包含表达式不能下推时整体不下推，排除表达式逐个下推
+        Assertions.assertEquals("\tAND NAME NOT LIKE 'TMP!_%' ESCAPE '!'\n",
+                DictionaryNameFilter.predicates(Trigger.class, "NAME", "APP_.*, (X|Y)", "TMP_.*, [0-9]+"));
+    }
+}
@@ -0,0 +1,128 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.CachedRow;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.ResultSetCache;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.Schema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class KingBaseCatalogMetadataTest {
+
+    private static final String[] COLUMN_LABELS = {"table_schem", "table_name", "column_name", "ordinal_position", "type_name",
+            "typmod", "nullable", "column_def", "remarks", "is_autoincrement"};
+
+    private static final Object[][] COLUMN_ROWS = {
+            {"app", "orders", "id", 1, "int8", -1, 0, "nextval('orders_id_seq'::regclass)", null, "YES"},
+            {"app", "orders", "amount", 2, "numeric", (12 << 16) + 2 + 4, 1, null, "金额", "NO"},
+            {"app", "orders", "created", 3, "timestamp", 3, 1, null, null, "NO"},
+            {"app", "users", "name", 1, "varchar", 54, 1, null, null, "NO"},
+            {"app", "users", "note", 2, "text", -1, 1, null, null, "NO"},
+    };
+
+    @Test
+    void testColumnsDecodeTypmod() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        List<Map<String, Object>> rows = KingBaseCatalogMetadata.load(mockConnection(preparedStatement), "app", SchemaMetadataCache.Type.COLUMNS);
+
+        Assertions.assertEquals(5, rows.size());
+        Assertions.assertEquals(Types.BIGINT, rows.get(0).get("DATA_TYPE"));
+        Assertions.assertEquals(Types.NUMERIC, rows.get(1).get("DATA_TYPE"));
+        Assertions.assertEquals(12, rows.get(1).get("COLUMN_SIZE"));
+        Assertions.assertEquals(2, rows.get(1).get("DECIMAL_DIGITS"));
+        Assertions.assertEquals(3, rows.get(2).get("DECIMAL_DIGITS"));
+        Assertions.assertEquals(50, rows.get(3).get("COLUMN_SIZE"));
+        Assertions.assertNull(rows.get(4).get("COLUMN_SIZE"));
+        Assertions.assertFalse(rows.get(0).containsKey("TYPMOD"));
+    }
+
+    @Test
+    void testSchemaNameIsLowerCasedAndCachedWithOneQuery() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        Connection connection = mockConnection(preparedStatement);
+        KingBaseDatabase database = spy(new KingBaseDatabase());
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        doReturn(jdbcConnection).when(database).getConnection();
+
+        SnapshotControl snapshotControl = mock(SnapshotControl.class);
+        when(snapshotControl.shouldInclude(Column.class)).thenReturn(true);
+        DatabaseSnapshot snapshot = mock(DatabaseSnapshot.class);
+        when(snapshot.getDatabase()).thenReturn(database);
+        when(snapshot.getSnapshotControl()).thenReturn(snapshotControl);
+        ResultSetCache resultSetCache = new ResultSetCache();
+        when(snapshot.getResultSetCache("getColumns")).thenReturn(resultSetCache);
+
+        Schema schema = new Schema((String) null, "APP");
+        new ColumnSnapshotGeneratorChineseDb().addTo(schema, snapshot);
+
+        // 未加引号的模式名按 correctObjectName 转成小写后再查询系统表
+        verify(preparedStatement).setString(1, "app");
+        verify(connection, times(1)).prepareStatement(anyString());
+        Assertions.assertEquals(3, lookup(resultSetCache, database, schema, "orders").size());
+        Assertions.assertEquals(2, lookup(resultSetCache, database, schema, "users").size());
+    }
+
+    private static List<CachedRow> lookup(ResultSetCache resultSetCache, KingBaseDatabase database, Schema schema, String tableName) throws Exception {
+        return resultSetCache.get(new ResultSetCache.ResultSetExtractor(database) {
+            @Override
+            public boolean bulkContainsSchema(String schemaKey) {
+                return false;
+            }
+
+            @Override
+            public ResultSetCache.RowData rowKeyParameters(CachedRow row) {
+                throw new AssertionError("Rows must already be cached");
+            }
+
+            @Override
+            public ResultSetCache.RowData wantedKeyParameters() {
+                // 与 CachingDatabaseMetaData.getColumns 相同的目录、模式
+                return new ResultSetCache.RowData(database.getJdbcCatalogName(schema), database.getJdbcSchemaName(schema), database, tableName, null) {
+                };
+            }
+
+            @Override
+            public List<CachedRow> fastFetch() {
+                throw new AssertionError("Rows must already be cached");
+            }
+
+            @Override
+            public List<CachedRow> bulkFetch() {
+                return Collections.emptyList();
+            }
+        });
+    }
+
+    private static Connection mockConnection(PreparedStatement preparedStatement) throws Exception {
+        Connection connection = mock(Connection.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(COLUMN_LABELS.length);
+        when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> COLUMN_LABELS[(int) invocation.getArgument(0) - 1]);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < COLUMN_ROWS.length);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> COLUMN_ROWS[row[0]][(int) invocation.getArgument(0) - 1]);
+        return connection;
+    }
+}
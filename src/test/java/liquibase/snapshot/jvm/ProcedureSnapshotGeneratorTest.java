@@ -0,0 +1,201 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.diff.output.changelog.DiffToChangeLog;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.StoredProcedure;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+public class ProcedureSnapshotGeneratorTest {
+
+    private DMDatabase database;
+    private Connection connection;
+    private DatabaseSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = mock(DMDatabase.class);
+        connection = mock(Connection.class);
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        when(database.getConnection()).thenReturn(jdbcConnection);
+
+        SnapshotControl snapshotControl = mock(SnapshotControl.class);
+        when(snapshotControl.shouldInclude(StoredProcedure.class)).thenReturn(true);
+        snapshot = mock(DatabaseSnapshot.class);
+        when(snapshot.getDatabase()).thenReturn(database);
+        when(snapshot.getSnapshotControl()).thenReturn(snapshotControl);
+        mockDependencies();
+    }
+
+    @Test
+    void testBodiesArePrefetchedWithOneQuery() throws Exception {
+        int count = 12;
+        Timestamp[] lastDdlTimes = new Timestamp[count];
+        Statement listing = mockListing(lastDdlTimes);
+        // P0 调用 P1
+        mockDependencies("P0", "P1");
+
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(contains("DBA_SOURCE"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        // 每个存储过程两行源码
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < count * 2);
+        when(resultSet.getString("NAME")).thenAnswer(invocation -> "P" + (row[0] / 2));
+        when(resultSet.getString("TYPE")).thenReturn("PROCEDURE");
+        when(resultSet.getString("TEXT")).thenAnswer(invocation -> row[0] % 2 == 0 ? "PROCEDURE P" + (row[0] / 2) + "\n" : "AS BEGIN NULL; END;");
+
+        Schema schema = new Schema((String) null, "APP");
+        new ProcedureSnapshotGenerator().addTo(schema, snapshot);
+
+        List<StoredProcedure> procedures = schema.getDatabaseObjects(StoredProcedure.class);
+        Assertions.assertEquals(count, procedures.size());
+        for (StoredProcedure procedure : procedures) {
+            Assertions.assertEquals("PROCEDURE " + procedure.getName() + "\nAS BEGIN NULL; END;", procedure.getBody());
+        }
+        verify(connection, times(1)).prepareStatement(contains("DBA_SOURCE"));
+        // 只有列表查询，没有逐个查询源码
+        verify(connection, times(1)).createStatement();
+        verify(listing).setFetchSize(ChineseDbSnapshotConfiguration.FETCH_SIZE.getCurrentValue());
+        verify(preparedStatement).close();
+        verify(resultSet).close();
+        // 被调用的 P1 排在 P0 之前
+        Map<String, Long> ranks = new HashMap<>();
+        for (StoredProcedure procedure : procedures) {
+            ranks.put(procedure.getName(), procedure.getAttribute(DiffToChangeLog.ORDER_ATTRIBUTE, Long.class));
+        }
+        Assertions.assertTrue(ranks.get("P1") < ranks.get("P0"));
+    }
+
+    @Test
+    void testOnlyChangedBodiesAreReadWhenCacheEnabled(@TempDir Path cacheDirectory) throws Exception {
+        when(database.getConnection().getURL()).thenReturn("jdbc:dm://localhost:5236");
+        Timestamp released = new Timestamp(1_700_000_000_000L);
+        Map<String, Object> cacheConfig = Collections.singletonMap(ChineseDbSnapshotConfiguration.CACHE_DIRECTORY.getKey(), cacheDirectory.toString());
+
+        PreparedStatement first = mockBodyStatement("P0", "P1");
+        Scope.child(cacheConfig, () -> snapshotProcedures(released, released));
+        verify(first).setString(2, "P0");
+        verify(first).setString(3, "P1");
+
+        // P1 重新编译后只查询 P1
+        PreparedStatement second = mockBodyStatement("P1");
+        Schema schema = Scope.child(cacheConfig, () -> snapshotProcedures(released, new Timestamp(released.getTime() + 1000)));
+        verify(second).setString(2, "P1");
+        verify(second, never()).setString(3, "P0");
+        verify(connection, times(2)).prepareStatement(contains("DBA_SOURCE"));
+        for (StoredProcedure procedure : schema.getDatabaseObjects(StoredProcedure.class)) {
+            Assertions.assertEquals("PROCEDURE " + procedure.getName(), procedure.getBody());
+        }
+    }
+
+    @Test
+    void testKingBaseBodiesLoadedWithListing() throws Exception {
+        KingBaseDatabase kingBase = spy(new KingBaseDatabase());
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        doReturn(jdbcConnection).when(kingBase).getConnection();
+        when(snapshot.getDatabase()).thenReturn(kingBase);
+
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("PROCEDURE_NAME")).thenReturn("calc_total");
+        when(resultSet.getObject("pid")).thenReturn(16384L);
+        when(resultSet.getString("PROCEDURE_BODY")).thenReturn("CREATE OR REPLACE FUNCTION app.calc_total() RETURNS integer AS $$ SELECT 1 $$ LANGUAGE sql");
+
+        Schema schema = new Schema((String) null, "APP");
+        ProcedureSnapshotGenerator generator = new ProcedureSnapshotGenerator();
+        generator.addTo(schema, snapshot);
+
+        StoredProcedure procedure = schema.getDatabaseObjects(StoredProcedure.class).get(0);
+        Assertions.assertTrue(procedure.getBody().startsWith("CREATE OR REPLACE FUNCTION app.calc_total()"));
+        Assertions.assertSame(procedure, generator.snapshotObject(procedure, snapshot));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement).executeQuery(sql.capture());
+        Assertions.assertTrue(sql.getValue().contains("pg_get_functiondef(p.oid)"));
+        Assertions.assertTrue(sql.getValue().contains("n.nspname = 'app'"));
+        verify(connection, times(1)).createStatement();
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    private Schema snapshotProcedures(Timestamp... lastDdlTimes) throws Exception {
+        mockListing(lastDdlTimes);
+        Schema schema = new Schema((String) null, "APP");
+        new ProcedureSnapshotGenerator().addTo(schema, snapshot);
+        return schema;
+    }
+
+    // 存储过程列表 P0、P1 ...，LAST_DDL_TIME 依次取 lastDdlTimes
+    private Statement mockListing(Timestamp... lastDdlTimes) throws Exception {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < lastDdlTimes.length);
+        when(resultSet.getString("PROCEDURE_NAME")).thenAnswer(invocation -> "P" + row[0]);
+        when(resultSet.getTimestamp("LAST_DDL_TIME")).thenAnswer(invocation -> lastDdlTimes[row[0]]);
+        return statement;
+    }
+
+    // ALL_DEPENDENCIES 的 NAME、REFERENCED_NAME 成对给出
+    private void mockDependencies(String... pairs) throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.prepareStatement(contains("ALL_DEPENDENCIES"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("NAME");
+        when(metaData.getColumnLabel(2)).thenReturn("REFERENCED_NAME");
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < pairs.length / 2);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> pairs[row[0] * 2 + (int) invocation.getArgument(0) - 1]);
+    }
+
+    private PreparedStatement mockBodyStatement(String... names) throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(contains("DBA_SOURCE"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < names.length);
+        when(resultSet.getString("NAME")).thenAnswer(invocation -> names[row[0]]);
+        when(resultSet.getString("TYPE")).thenReturn("PROCEDURE");
+        when(resultSet.getString("TEXT")).thenAnswer(invocation -> "PROCEDURE " + names[row[0]]);
+        return preparedStatement;
+    }
+}
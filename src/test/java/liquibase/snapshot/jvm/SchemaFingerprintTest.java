@@ -0,0 +1,73 @@
+package liquibase.snapshot.jvm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SchemaFingerprintTest {
+
+    private static final String[] SOURCE_COLUMNS = {"NAME", "TYPE", "TEXT", "TOTAL_LENGTH"};
+    private static final String[] INDEX_COLUMNS = {"TABLE_SCHEM", "TABLE_NAME", "INDEX_NAME", "COLUMN_NAME"};
+
+    @Test
+    void testEquivalentInstancesHaveSameFingerprint() throws Exception {
+        SchemaFingerprint first = fingerprint("INDEX33555484", "CREATE PROCEDURE P1 AS\nBEGIN NULL; END;");
+        // 换行符、行尾空白和系统生成的索引名不同
+        SchemaFingerprint second = fingerprint("INDEX33556001", "CREATE PROCEDURE P1 AS  \r\nBEGIN NULL; END;");
+
+        Assertions.assertEquals(first.getDigest(), second.getDigest());
+        Assertions.assertEquals(first.getCategoryDigests(), second.getCategoryDigests());
+    }
+
+    @Test
+    void testChangedBodyReportsCategory() throws Exception {
+        SchemaFingerprint baseline = fingerprint("IDX_ORDERS", "CREATE PROCEDURE P1 AS\nBEGIN NULL; END;");
+        SchemaFingerprint drifted = fingerprint("IDX_ORDERS", "CREATE PROCEDURE P1 AS\nBEGIN COMMIT; END;");
+
+        Assertions.assertNotEquals(baseline.getDigest(), drifted.getDigest());
+        Assertions.assertEquals(Collections.singletonList(SchemaFingerprint.PROCEDURES), drifted.getDifferingCategories(baseline));
+    }
+
+    private SchemaFingerprint fingerprint(String indexName, String procedureText) throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0, String.class);
+            ResultSet resultSet;
+            if (sql.contains("ORDER BY C.INDEX_NAME")) {
+                resultSet = mockResultSet(INDEX_COLUMNS, new Object[]{"APP", "ORDERS", indexName, "ID"});
+            } else if (sql.contains("FROM DBA_SOURCE")) {
+                resultSet = mockResultSet(SOURCE_COLUMNS, new Object[]{"P1", "PROCEDURE", procedureText, (long) procedureText.length()});
+            } else {
+                resultSet = mockResultSet(new String[0]);
+            }
+            PreparedStatement preparedStatement = mock(PreparedStatement.class);
+            when(preparedStatement.executeQuery()).thenReturn(resultSet);
+            return preparedStatement;
+        });
+        return SchemaFingerprint.compute(connection, "APP");
+    }
+
+    private static ResultSet mockResultSet(String[] columns, Object[]... rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(columns.length);
+        when(metaData.getColumnLabel(anyInt())).thenAnswer(invocation -> columns[invocation.getArgument(0, Integer.class) - 1]);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation -> rows[row[0]][invocation.getArgument(0, Integer.class) - 1]);
+        when(resultSet.getString(anyString())).thenAnswer(invocation -> (String) rows[row[0]][Arrays.asList(columns).indexOf(invocation.getArgument(0, String.class))]);
+        when(resultSet.getLong(anyString())).thenAnswer(invocation -> (Long) rows[row[0]][Arrays.asList(columns).indexOf(invocation.getArgument(0, String.class))]);
+        return resultSet;
+    }
+}
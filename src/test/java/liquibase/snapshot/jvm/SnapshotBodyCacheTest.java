@@ -0,0 +1,101 @@
+package liquibase.snapshot.jvm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SnapshotBodyCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntriesSurviveReopenUntilDdlTimeChanges() {
+        Path file = directory.resolve("app.bodies");
+        SnapshotBodyCache cache = new SnapshotBodyCache(file);
+        cache.put(SnapshotBodyCache.PROCEDURE, "P1", 1000L, new SourceBody("CREATE PROCEDURE P1 AS BEGIN NULL; END;", null, 39));
+        cache.put(SnapshotBodyCache.TRIGGER, "存储", 2000L, new SourceBody(null, "abcd", 120));
+        cache.close();
+
+        cache = new SnapshotBodyCache(file);
+        Assertions.assertEquals("CREATE PROCEDURE P1 AS BEGIN NULL; END;", cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1000L).getText());
+        SourceBody digest = cache.get(SnapshotBodyCache.TRIGGER, "存储", 2000L);
+        Assertions.assertEquals("abcd", digest.getDigest());
+        Assertions.assertEquals(120, digest.getLength());
+        Assertions.assertNull(cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1001L));
+        Assertions.assertNull(cache.get(SnapshotBodyCache.PROCEDURE, "P1", null));
+        Assertions.assertNull(cache.get(SnapshotBodyCache.TRIGGER, "P1", 1000L));
+        cache.close();
+    }
+
+    @Test
+    void testLaterRecordWinsAndFileIsCompacted() throws Exception {
+        Path file = directory.resolve("app.bodies");
+        for (int i = 0; i < 100; i++) {
+            SnapshotBodyCache cache = new SnapshotBodyCache(file);
+            cache.put(SnapshotBodyCache.PROCEDURE, "P1", (long) i, new SourceBody("BODY " + i, null, 6));
+            cache.close();
+        }
+        SnapshotBodyCache cache = new SnapshotBodyCache(file);
+        Assertions.assertEquals("BODY 99", cache.get(SnapshotBodyCache.PROCEDURE, "P1", 99L).getText());
+        cache.close();
+        // 过期记录超过阈值后被重写，文件不会无限增长
+        Assertions.assertTrue(Files.size(file) < 100 * 30);
+    }
+
+    @Test
+    void testDroppedObjectsArePrunedOnCompaction() throws Exception {
+        Path file = directory.resolve("app.bodies");
+        SnapshotBodyCache cache = new SnapshotBodyCache(file);
+        for (int i = 0; i < 100; i++) {
+            cache.put(SnapshotBodyCache.PROCEDURE, "P" + i, 1L, new SourceBody("BODY " + i, null, 6));
+        }
+        cache.put(SnapshotBodyCache.TRIGGER, "T1", 1L, new SourceBody("TRIGGER", null, 7));
+        cache.close();
+
+        // 列表中只剩 P0，其余存储过程已删除；触发器不在本次列表的类型中，保持不变
+        cache = new SnapshotBodyCache(file);
+        cache.retain(SnapshotBodyCache.PROCEDURE, Collections.singleton("P0"));
+        Assertions.assertNull(cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1L));
+        cache.close();
+
+        cache = new SnapshotBodyCache(file);
+        Assertions.assertEquals("BODY 0", cache.get(SnapshotBodyCache.PROCEDURE, "P0", 1L).getText());
+        Assertions.assertNull(cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1L));
+        Assertions.assertEquals("TRIGGER", cache.get(SnapshotBodyCache.TRIGGER, "T1", 1L).getText());
+        cache.close();
+        // 重写后不留下临时文件
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(new HashSet<>(Arrays.asList("app.bodies", "app.bodies.lock")),
+                    files.map(path -> path.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testTruncatedTailIsIgnored() throws Exception {
+        Path file = directory.resolve("app.bodies");
+        SnapshotBodyCache cache = new SnapshotBodyCache(file);
+        cache.put(SnapshotBodyCache.PROCEDURE, "P1", 1L, new SourceBody("BODY", null, 4));
+        cache.close();
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        cache = new SnapshotBodyCache(file);
+        Assertions.assertEquals("BODY", cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1L).getText());
+        cache.put(SnapshotBodyCache.PROCEDURE, "P2", 1L, new SourceBody("BODY2", null, 5));
+        cache.close();
+
+        cache = new SnapshotBodyCache(file);
+        Assertions.assertEquals("BODY", cache.get(SnapshotBodyCache.PROCEDURE, "P1", 1L).getText());
+        Assertions.assertEquals("BODY2", cache.get(SnapshotBodyCache.PROCEDURE, "P2", 1L).getText());
+        cache.close();
+    }
+}
@@ -0,0 +1,35 @@
+package liquibase.snapshot.jvm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+public class SourceBodyBuilderTest {
+
+    @Test
+    void testFullModeKeepsText() throws Exception {
+        SourceBody body = new SourceBodyBuilder(false, 32)
+                .append("CREATE PROCEDURE P\n")
+                .append(new StringReader("AS BEGIN NULL; END;"))
+                .build();
+        Assertions.assertEquals("CREATE PROCEDURE P\nAS BEGIN NULL; END;", body.getText());
+        Assertions.assertNull(body.getDigest());
+        Assertions.assertEquals(body.getText().length(), body.getLength());
+    }
+
+    @Test
+    void testHashModeKeepsOnlyDigest() throws Exception {
+        // 语句头已是规范形式，规范化前后相同
+        String text = "CREATE OR REPLACE PROCEDURE 过程\nAS BEGIN NULL; END;";
+        SourceBody body = new SourceBodyBuilder(true, 0)
+                .append(text.substring(0, 10))
+                .append(new StringReader(text.substring(10)))
+                .build();
+        Assertions.assertNull(body.getText());
+        Assertions.assertEquals(text.length(), body.getLength());
+        String expected = SourceBodyBuilder.toHex(SourceBodyBuilder.newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(expected, body.getDigest());
+    }
+}
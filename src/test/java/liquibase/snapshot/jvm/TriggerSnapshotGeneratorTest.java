@@ -0,0 +1,189 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.Scope;
+import liquibase.database.core.DMConnectionPool;
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.KingBaseDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.snapshot.ChineseDbSnapshotConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Trigger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+public class TriggerSnapshotGeneratorTest {
+
+    private DMDatabase database;
+    private Connection connection;
+    private DatabaseSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = mock(DMDatabase.class);
+        connection = mock(Connection.class);
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        when(database.getConnection()).thenReturn(jdbcConnection);
+
+        SnapshotControl snapshotControl = mock(SnapshotControl.class);
+        when(snapshotControl.shouldInclude(Trigger.class)).thenReturn(true);
+        snapshot = mock(DatabaseSnapshot.class);
+        when(snapshot.getDatabase()).thenReturn(database);
+        when(snapshot.getSnapshotControl()).thenReturn(snapshotControl);
+    }
+
+    @Test
+    void testDMTriggersAndBodiesLoadedInOnePass() throws Exception {
+        mockTriggerRows(connection);
+
+        Schema schema = new Schema((String) null, "APP");
+        new TriggerSnapshotGenerator().addTo(schema, snapshot);
+
+        assertTriggers(schema);
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void testParallelModeLoadsTriggersOnPoolConnection() throws Exception {
+        Connection poolConnection = mock(Connection.class);
+        when(poolConnection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            PreparedStatement preparedStatement = mock(PreparedStatement.class);
+            // 存储过程源码和其它字典查询返回空结果
+            ResultSet resultSet = invocation.getArgument(0, String.class).contains("ALL_TRIGGERS") ? mockTriggerResultSet() : mock(ResultSet.class);
+            when(resultSet.getMetaData()).thenReturn(mock(ResultSetMetaData.class));
+            when(preparedStatement.executeQuery()).thenReturn(resultSet);
+            return preparedStatement;
+        });
+        DMConnectionPool pool = mock(DMConnectionPool.class);
+        when(pool.submit(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0, DMConnectionPool.ConnectionCallback.class).doInConnection(poolConnection)));
+        when(database.getSnapshotConnectionPool()).thenReturn(pool);
+        Map<String, Object> scratch = new HashMap<>();
+        when(snapshot.getScratchData(anyString())).thenAnswer(invocation -> scratch.get(invocation.getArgument(0, String.class)));
+        when(snapshot.setScratchData(anyString(), any())).thenAnswer(invocation -> scratch.put(invocation.getArgument(0, String.class), invocation.getArgument(1)));
+
+        Schema schema = new Schema((String) null, "APP");
+        Scope.child(Collections.singletonMap(ChineseDbSnapshotConfiguration.PARALLEL.getKey(), true), () -> new TriggerSnapshotGenerator().addTo(schema, snapshot));
+
+        assertTriggers(schema);
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testKingBaseTriggerDefinitionsLoadedWithListing() throws Exception {
+        KingBaseDatabase kingBase = spy(new KingBaseDatabase());
+        JdbcConnection jdbcConnection = mock(JdbcConnection.class);
+        when(jdbcConnection.getWrappedConnection()).thenReturn(connection);
+        doReturn(jdbcConnection).when(kingBase).getConnection();
+        when(snapshot.getDatabase()).thenReturn(kingBase);
+
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("TRIGGER_NAME")).thenReturn("trg_audit");
+        when(resultSet.getString("TABLE_NAME")).thenReturn("orders");
+        when(resultSet.getString("TRIGGER_BODY")).thenReturn("CREATE TRIGGER trg_audit AFTER INSERT ON app.orders FOR EACH ROW EXECUTE FUNCTION app.audit()");
+
+        Schema schema = new Schema((String) null, "APP");
+        TriggerSnapshotGenerator generator = new TriggerSnapshotGenerator();
+        generator.addTo(schema, snapshot);
+
+        List<Trigger> triggers = schema.getDatabaseObjects(Trigger.class);
+        Assertions.assertEquals(1, triggers.size());
+        Assertions.assertEquals("orders", triggers.get(0).getTable().getName());
+        Assertions.assertTrue(triggers.get(0).getBody().startsWith("CREATE TRIGGER trg_audit"));
+        Assertions.assertSame(triggers.get(0), generator.snapshotObject(triggers.get(0), snapshot));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement).executeQuery(sql.capture());
+        Assertions.assertTrue(sql.getValue().contains("n.nspname = 'app'"));
+        Assertions.assertTrue(sql.getValue().contains("NOT t.tgisinternal"));
+        verify(connection, times(1)).createStatement();
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    void testMetadataDdlModeStreamsTriggerDefinitions() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.prepareStatement(contains("DBMS_METADATA.GET_DDL('TRIGGER'"))).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("TRIGGER_NAME")).thenReturn("TRG_A");
+        when(resultSet.getString("TABLE_NAME")).thenReturn("T1");
+        when(resultSet.findColumn("DDL")).thenReturn(3);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnType(3)).thenReturn(Types.CLOB);
+        when(resultSet.getCharacterStream(3)).thenReturn(new StringReader("CREATE OR REPLACE TRIGGER TRG_A BEGIN NULL; END;"));
+
+        Schema schema = new Schema((String) null, "APP");
+        Scope.child(Collections.singletonMap(ChineseDbSnapshotConfiguration.METADATA_DDL.getKey(), true), () -> new TriggerSnapshotGenerator().addTo(schema, snapshot));
+
+        List<Trigger> triggers = schema.getDatabaseObjects(Trigger.class);
+        Assertions.assertEquals(1, triggers.size());
+        Assertions.assertEquals("T1", triggers.get(0).getTable().getName());
+        Assertions.assertEquals("CREATE OR REPLACE TRIGGER TRG_A BEGIN NULL; END;", triggers.get(0).getBody());
+        verify(preparedStatement).setString(1, "APP");
+        verify(resultSet, never()).getString(3);
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    private void assertTriggers(Schema schema) {
+        List<Trigger> triggers = schema.getDatabaseObjects(Trigger.class);
+        Assertions.assertEquals(2, triggers.size());
+        for (Trigger trigger : triggers) {
+            if ("TRG_A".equals(trigger.getName())) {
+                Assertions.assertEquals("CREATE TRIGGER TRG_A\nBEGIN NULL; END;", trigger.getBody());
+                Assertions.assertEquals("T1", trigger.getTable().getName());
+            } else {
+                Assertions.assertEquals("CREATE TRIGGER TRG_B BEGIN NULL; END;", trigger.getBody());
+            }
+        }
+    }
+
+    private void mockTriggerRows(Connection connection) throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mockTriggerResultSet();
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    private ResultSet mockTriggerResultSet() throws Exception {
+        String[][] rows = {
+                {"TRG_A", "T1", "CREATE TRIGGER TRG_A\n"},
+                {"TRG_A", "T1", "BEGIN NULL; END;"},
+                {"TRG_B", "T2", "CREATE TRIGGER TRG_B BEGIN NULL; END;"},
+        };
+        ResultSet resultSet = mock(ResultSet.class);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getString("OWNER")).thenReturn("APP");
+        when(resultSet.getString("TRIGGER_NAME")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getString("TABLE_NAME")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getString("TEXT")).thenAnswer(invocation -> rows[row[0]][2]);
+        return resultSet;
+    }
+}
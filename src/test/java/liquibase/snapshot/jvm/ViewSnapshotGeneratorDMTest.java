@@ -0,0 +1,80 @@
+package liquibase.snapshot.jvm;
+
+import liquibase.database.core.DMDatabase;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.structure.core.View;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ViewSnapshotGeneratorDMTest {
+
+    @Test
+    void testDefinitionsLoadedWithOneQuery() throws Exception {
+        String[][] rows = {
+                {"V_ORDERS", "CREATE VIEW \"APP\".\"V_ORDERS\" AS\r\nSELECT * FROM ORDERS"},
+                {"V_USERS", "create or replace view V_USERS as(SELECT ID FROM USERS)"},
+        };
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        final int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getString("VIEW_NAME")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getString("TEXT")).thenAnswer(invocation -> rows[row[0]][1]);
+
+        Map<String, ViewSnapshotGeneratorDM.ViewSource> definitions = ViewSnapshotGeneratorDM.loadViewDefinitions(connection, "APP");
+
+        Assertions.assertEquals("SELECT * FROM ORDERS", definitions.get("V_ORDERS").getDefinition());
+        Assertions.assertEquals("(SELECT ID FROM USERS)", definitions.get("V_USERS").getDefinition());
+        verify(preparedStatement).setString(1, "APP");
+        verify(connection, times(1)).prepareStatement(anyString());
+        verify(resultSet).close();
+    }
+
+    @Test
+    void testRemarksSurvivePrefetch() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("VIEW_NAME")).thenReturn("V_ORDERS");
+        when(resultSet.getString("TEXT")).thenReturn("CREATE VIEW V_ORDERS AS SELECT * FROM ORDERS\0");
+        when(resultSet.getString("COMMENTS")).thenReturn("订单视图");
+
+        View view = new View();
+        view.setName("V_ORDERS");
+        ViewSnapshotGeneratorDM.loadViewDefinitions(connection, "APP").get("V_ORDERS").applyTo(view);
+
+        Assertions.assertEquals("订单视图", view.getRemarks());
+        // 与核心相同，去掉末尾的 NUL
+        Assertions.assertEquals("SELECT * FROM ORDERS", view.getDefinition());
+    }
+
+    @Test
+    void testJdbcRemarksKeptWithoutDictionaryComment() {
+        View view = new View();
+        view.setRemarks("it''s");
+        new ViewSnapshotGeneratorDM.ViewSource("  ", null).applyTo(view);
+
+        Assertions.assertEquals("it's", view.getRemarks());
+        Assertions.assertEquals("[CANNOT READ VIEW DEFINITION]", view.getDefinition());
+    }
+
+    @Test
+    void testPriority() {
+        ViewSnapshotGeneratorDM generator = new ViewSnapshotGeneratorDM();
+        Assertions.assertTrue(generator.getPriority(View.class, new DMDatabase()) > generator.getPriority(View.class, new MySQLDatabase()));
+    }
+}
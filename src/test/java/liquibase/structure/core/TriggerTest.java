@@ -0,0 +1,62 @@
+package liquibase.structure.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TriggerTest {
+
+    @Test
+    void testIdentityIncludesSchema() {
+        Trigger a = new Trigger("BASE", "APP", "TRG_AUDIT");
+        Trigger sameName = new Trigger("BASE", "HIS", "TRG_AUDIT");
+        Trigger sameTrigger = new Trigger("base", " app ", "trg_audit ");
+
+        Assertions.assertNotEquals(a, sameName);
+        Assertions.assertEquals(a, sameTrigger);
+        Assertions.assertEquals(a.hashCode(), sameTrigger.hashCode());
+        Assertions.assertEquals(a.getIdentityKey(), sameTrigger.getIdentityKey());
+        Assertions.assertEquals("trg_audit", sameName.getCanonicalName());
+
+        Set<Trigger> triggers = new HashSet<>();
+        triggers.add(a);
+        triggers.add(sameName);
+        Assertions.assertEquals(2, triggers.size());
+        Assertions.assertTrue(triggers.contains(sameTrigger));
+    }
+
+    @Test
+    void testIdentityFixedWhenAddedToSnapshot() {
+        Map<String, String> identityKeys = new ConcurrentHashMap<>();
+        Trigger a = new Trigger("BASE", "APP", "TRG_AUDIT");
+        Trigger sameTrigger = new Trigger("base", "app", "trg_audit");
+        a.fixIdentity(identityKeys);
+        sameTrigger.fixIdentity(identityKeys);
+        Assertions.assertSame(a.getCanonicalName(), sameTrigger.getCanonicalName());
+
+        Set<Trigger> triggers = new HashSet<>();
+        triggers.add(a);
+        int hashCode = a.hashCode();
+        // 快照替换 schema、修改名称后 identity 不变，仍能在 HashSet 中找到
+        a.setSchema(new Schema("BASE", "HIS"));
+        a.setName("TRG_RENAMED");
+        Assertions.assertEquals(hashCode, a.hashCode());
+        Assertions.assertTrue(triggers.contains(a));
+        Assertions.assertEquals(sameTrigger, a);
+    }
+
+    @Test
+    void testTriggerWithoutSchemaMatchesAnySchema() {
+        Trigger example = new Trigger().setName("TRG_A");
+        Trigger trigger = new Trigger("BASE", "APP", "trg_a");
+
+        Assertions.assertEquals(example, trigger);
+        Assertions.assertEquals(trigger, example);
+        Assertions.assertEquals(example.hashCode(), trigger.hashCode());
+        Assertions.assertNotEquals(new Trigger().setName("TRG_B"), trigger);
+    }
+}